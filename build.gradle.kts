@@ -17,6 +17,25 @@ java {
     withSourcesJar() // Enable sources jar generation
 }
 
+sourceSets {
+    // Generated stickers shared by the benchmarks and the load test
+    val fixtures = create("fixtures") {
+        compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    }
+
+    // JMH benchmarks, run with ./gradlew jmh (-Pjmh.includes=<regex> to run a subset)
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output + fixtures.output + sourceSets.main.get().compileClasspath
+        runtimeClasspath += output + compileClasspath
+    }
+
+    // Headless load test against fake players, holograms and a virtual-clock scheduler, run with ./gradlew loadTest
+    create("loadtest") {
+        compileClasspath += sourceSets.main.get().output + fixtures.output + sourceSets.main.get().compileClasspath
+        runtimeClasspath += output + compileClasspath
+    }
+}
+
 repositories {
     mavenLocal()
 
@@ -37,8 +56,18 @@ dependencies {
     compileOnly(libs.fancy.holograms)
     implementation(libs.triumph.gui)
 
+    // Benchmarks
+    "jmhImplementation"(libs.jmh.core)
+    "jmhImplementation"(libs.guice)
+    "jmhAnnotationProcessor"(libs.jmh.generator)
+
+    // Load test
+    "loadtestImplementation"(libs.guice)
+
     // Testing - Core
     testImplementation(libs.annotations)
+    testImplementation(libs.paper.api) // The code under test uses Adventure, Guava and the Bukkit configuration API
+    testImplementation(libs.guice) // StickersConfig reads the injector stage
     testImplementation(platform(libs.junit.bom))
     testImplementation(libs.bundles.junit)
     testRuntimeOnly(libs.slf4j)
@@ -71,6 +100,48 @@ tasks {
         options.use()
     }
 
+    named<JavaCompile>("compileFixturesJava") {
+        options.encoding = Charsets.UTF_8.name()
+        options.release.set(21)
+    }
+
+    named<JavaCompile>("compileJmhJava") {
+        options.encoding = Charsets.UTF_8.name()
+        options.release.set(21)
+    }
+
+    named<JavaCompile>("compileLoadtestJava") {
+        options.encoding = Charsets.UTF_8.name()
+        options.release.set(21)
+    }
+
+    register<JavaExec>("jmh") {
+        group = "verification"
+        description = "Runs the JMH benchmarks with the GC profiler to report allocation rates."
+        classpath = sourceSets["jmh"].runtimeClasspath
+        mainClass.set("org.openjdk.jmh.Main")
+
+        val results = layout.buildDirectory.file("reports/jmh/results.json")
+        outputs.file(results)
+        doFirst { results.get().asFile.parentFile.mkdirs() }
+
+        args("-prof", "gc", "-rf", "json", "-rff", results.get().asFile.path)
+        (project.findProperty("jmh.includes") as String?)?.let { args(it) }
+    }
+
+    register<JavaExec>("loadTest") {
+        group = "verification"
+        description = "Simulates players placing stickers on a fake server and reports per-tick CPU time and allocation."
+        classpath = sourceSets["loadtest"].runtimeClasspath
+        mainClass.set("${mainPackage}.stickers.StickerLoadTest")
+
+        val report = layout.buildDirectory.file("reports/loadtest/report.json")
+        outputs.file(report)
+
+        args("--report=${report.get().asFile.path}")
+        (project.findProperty("loadtest.args") as String?)?.let { args(it.split(" ").filter(String::isNotBlank)) }
+    }
+
     processResources {
         filteringCharset = Charsets.UTF_8.name() // We want UTF-8 for everything
     }
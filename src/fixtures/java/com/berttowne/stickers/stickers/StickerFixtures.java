@@ -0,0 +1,56 @@
+package com.berttowne.stickers.stickers;
+
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generated stickers shaped like the ones the resource pack builder emits: one glyph per frame
+ * in the default font, every fourth sticker animated, spread over a handful of permission nodes.
+ * Shared by the benchmarks and the load test.
+ */
+public final class StickerFixtures {
+
+    public static final int PERMISSION_NODES = 16;
+
+    private StickerFixtures() { }
+
+    /**
+     * @param count The number of stickers.
+     * @return Stickers named {@code sticker_0} to {@code sticker_<count - 1>}.
+     */
+    public static @NotNull List<Sticker> stickers(int count) {
+        List<Sticker> stickers = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int frameCount = i % 4 == 0 ? 8 : 1;
+            List<Component> frames = new ArrayList<>(frameCount);
+            for (int frame = 0; frame < frameCount; frame++) {
+                frames.add(frame(i * 8 + frame));
+            }
+
+            stickers.add(new Sticker(
+                    "sticker_" + i,
+                    List.of(Component.text("Generated sticker #" + i, NamedTextColor.GRAY)),
+                    frames,
+                    frameCount > 1 ? 4 : 0,
+                    "stickers.use.group" + (i % PERMISSION_NODES)
+            ));
+        }
+
+        return stickers;
+    }
+
+    /**
+     * @param index The glyph index, wrapped into the private use area.
+     * @return A single-glyph frame.
+     */
+    public static @NotNull Component frame(int index) {
+        return Component.text((char) (0xE000 + index % 0x1900)).font(Key.key("minecraft", "default")).color(NamedTextColor.WHITE);
+    }
+
+}
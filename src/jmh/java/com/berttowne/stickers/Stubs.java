@@ -0,0 +1,123 @@
+package com.berttowne.stickers;
+
+import com.berttowne.stickers.stickers.StickerHolograms;
+import com.google.gson.Gson;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.papermc.paper.threadedregions.scheduler.AsyncScheduler;
+import io.papermc.paper.threadedregions.scheduler.GlobalRegionScheduler;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Stand-ins for the Bukkit objects the benchmarks need, so they run without a server. Only the
+ * methods the benchmarked code calls are implemented; everything else returns a default value.
+ */
+public final class Stubs {
+
+    private static final Logger LOGGER = Logger.getLogger("Stickers Benchmark");
+
+    private Stubs() { }
+
+    /**
+     * @return An injector with the plugin and the holograms bound to stubs, so services are created
+     * the same way as on a server. Their {@code onLoad} is never called.
+     */
+    public static @NotNull Injector injector() {
+        return Guice.createInjector(binder -> {
+            binder.bind(Plugin.class).toInstance(plugin());
+            binder.bind(Gson.class).toInstance(new Gson());
+            binder.bind(Clock.class).toInstance(Clock.systemUTC());
+            binder.bind(StickerHolograms.class).toInstance(stub(StickerHolograms.class, (name, args) -> null));
+        });
+    }
+
+    /**
+     * Install a server whose schedulers accept tasks but never run them. {@link Bukkit#setServer(Server)}
+     * only accepts one server per JVM, so later calls keep the first one.
+     */
+    public static void installServer() {
+        if (Bukkit.getServer() != null) return;
+
+        GlobalRegionScheduler globalScheduler = stub(GlobalRegionScheduler.class, (name, args) -> scheduledTask());
+        AsyncScheduler asyncScheduler = stub(AsyncScheduler.class, (name, args) -> scheduledTask());
+
+        Bukkit.setServer(stub(Server.class, (name, args) -> switch (name) {
+            case "getName" -> "Stickers Benchmark";
+            case "getVersion", "getBukkitVersion", "getMinecraftVersion" -> "benchmark";
+            case "getLogger" -> LOGGER;
+            case "getGlobalRegionScheduler" -> globalScheduler;
+            case "getAsyncScheduler" -> asyncScheduler;
+            default -> null;
+        }));
+    }
+
+    /**
+     * @return A plugin that only answers {@link Plugin#getName()}, {@link Plugin#getLogger()} and
+     * {@link Plugin#isEnabled()}.
+     */
+    public static @NotNull Plugin plugin() {
+        return stub(Plugin.class, (name, args) -> switch (name) {
+            case "getName" -> "Stickers";
+            case "getLogger" -> LOGGER;
+            case "isEnabled" -> Boolean.TRUE;
+            default -> null;
+        });
+    }
+
+    /**
+     * @param uniqueId      The player's unique id.
+     * @param hasPermission Decides which permission nodes the player holds.
+     * @return A player that only answers {@link Player#getUniqueId()}, {@link Player#getName()}
+     * and {@link Player#hasPermission(String)}.
+     */
+    public static @NotNull Player player(@NotNull UUID uniqueId, @NotNull Predicate<String> hasPermission) {
+        return stub(Player.class, (name, args) -> switch (name) {
+            case "getUniqueId" -> uniqueId;
+            case "getName" -> "Benchmark";
+            case "hasPermission" -> args[0] instanceof String node ? hasPermission.test(node) : Boolean.TRUE;
+            default -> null;
+        });
+    }
+
+    /**
+     * @return A task that does nothing when cancelled.
+     */
+    public static @NotNull ScheduledTask scheduledTask() {
+        return stub(ScheduledTask.class, (name, args) -> name.equals("cancel") ? ScheduledTask.CancelledState.CANCELLED_BY_CALLER : null);
+    }
+
+    private static <T> T stub(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals" -> { return proxy == args[0]; }
+                case "hashCode" -> { return System.identityHashCode(proxy); }
+                case "toString" -> { return type.getSimpleName() + " stub"; }
+            }
+
+            Object result = handler.handle(method.getName(), args == null ? new Object[0] : args);
+            if (result != null || !method.getReturnType().isPrimitive()) return result;
+            if (method.getReturnType() == boolean.class) return false;
+            if (method.getReturnType() == void.class) return null;
+
+            return method.getReturnType() == long.class ? 0L : method.getReturnType() == double.class ? 0D
+                    : method.getReturnType() == float.class ? 0F : 0;
+        }));
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.berttowne.stickers.stickers;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing a frame to the hologram line pushed by {@link PlacedSticker} on every frame change
+ * of an animated sticker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameSerializationBenchmark {
+
+    private final Component glyph = StickerFixtures.frame(42);
+    private final Component styled = Component.text()
+            .append(StickerFixtures.frame(42))
+            .append(Component.text(" wave", NamedTextColor.GOLD).decorate(TextDecoration.BOLD))
+            .build();
+
+    @Benchmark
+    public String glyphFrame() {
+        return PlacedSticker.serializeFrame(glyph);
+    }
+
+    @Benchmark
+    public String styledFrame() {
+        return PlacedSticker.serializeFrame(styled);
+    }
+
+}
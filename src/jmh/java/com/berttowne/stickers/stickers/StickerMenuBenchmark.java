@@ -0,0 +1,72 @@
+package com.berttowne.stickers.stickers;
+
+import com.berttowne.stickers.Stubs;
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code showStickersChat} menu construction: a page served from the menu cache, a page of a
+ * menu that was just prepared for a new catalog, and preparing the menu entries themselves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StickerMenuBenchmark {
+
+    @Param({"10", "1000"})
+    private int stickers;
+
+    private StickerService stickerService;
+    private StickerCatalog catalog;
+    private Player player;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stickerService = Stubs.injector().getInstance(StickerService.class);
+        stickerService.setStickers(StickerFixtures.stickers(stickers));
+        catalog = stickerService.getCatalog();
+
+        // Holds every other permission node, so half of the stickers are visible
+        player = Stubs.player(UUID.randomUUID(), node -> node.hashCode() % 2 == 0);
+    }
+
+    @Benchmark
+    public Component showStickersChatCached() {
+        return stickerService.showStickersChat(player, 2);
+    }
+
+    @Benchmark
+    public Component showStickersChatUncached() {
+        StickerMenu menu = new StickerMenu();
+        menu.prepare(catalog);
+
+        return menu.render(catalog, catalog.permissionKey(player), 2);
+    }
+
+    @Benchmark
+    public StickerMenu prepare() {
+        StickerMenu menu = new StickerMenu();
+        menu.prepare(catalog);
+
+        return menu;
+    }
+
+}
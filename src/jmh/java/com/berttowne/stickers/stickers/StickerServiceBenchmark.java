@@ -0,0 +1,68 @@
+package com.berttowne.stickers.stickers;
+
+import com.berttowne.stickers.Stubs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sticker lookups by name, as done for every {@code /placesticker} and every menu click.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StickerServiceBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int stickers;
+
+    private StickerService stickerService;
+    private String[] names;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stickerService = Stubs.injector().getInstance(StickerService.class);
+
+        List<Sticker> generated = StickerFixtures.stickers(stickers);
+        stickerService.setStickers(generated);
+
+        // Mixed case, as typed by players, so the lookup has to normalize the name
+        names = new String[Math.min(stickers, 1024)];
+        for (int i = 0; i < names.length; i++) {
+            String name = generated.get(ThreadLocalRandom.current().nextInt(stickers)).getName();
+            names[i] = i % 2 == 0 ? name : name.toUpperCase(Locale.ROOT);
+        }
+    }
+
+    @Benchmark
+    public Sticker getSticker() {
+        String name = names[next];
+        next = (next + 1) % names.length;
+
+        return stickerService.getSticker(name);
+    }
+
+    @Benchmark
+    public Sticker getMissingSticker() {
+        return stickerService.getSticker("no_such_sticker");
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.berttowne.stickers.util;
+
+import com.berttowne.stickers.Stubs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pass of the {@link Scheduler} condition poller, which runs every 50ms, over the
+ * conditional tasks of as many animated stickers. The tasks are scheduled with
+ * {@link Scheduler#repeatUntil(Runnable, long, long, java.util.function.Supplier)} on a stub
+ * server that never runs them. The conditions mirror a placed sticker's expiry check and are
+ * never met until the trial ends, so the set of tasks stays the same between passes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int tasks;
+
+    private volatile long expiresAt;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Stubs.installServer();
+        Scheduler.setOwner(Stubs.plugin());
+
+        expiresAt = Long.MAX_VALUE;
+        for (int i = 0; i < tasks; i++) {
+            Scheduler.repeatUntil(() -> { }, 1L, 1L, () -> expiresAt <= System.currentTimeMillis());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        expiresAt = 0;
+        Scheduler.pollConditions();
+    }
+
+    @Benchmark
+    public void pollConditions() {
+        Scheduler.pollConditions();
+    }
+
+}
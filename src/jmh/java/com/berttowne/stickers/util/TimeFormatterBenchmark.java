@@ -0,0 +1,49 @@
+package com.berttowne.stickers.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TimeFormatter#formatTimeDifference(long, boolean)}, and appending into a reused builder
+ * with {@link TimeFormatter#appendTimeDifference(StringBuilder, long, boolean)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeFormatterBenchmark {
+
+    @Param({"12000", "3723000", "100000000000"})
+    private long millis;
+
+    private final StringBuilder builder = new StringBuilder(32);
+
+    @Benchmark
+    public String shortUnits() {
+        return TimeFormatter.formatTimeDifference(millis, false);
+    }
+
+    @Benchmark
+    public String fullWords() {
+        return TimeFormatter.formatTimeDifference(millis, true);
+    }
+
+    @Benchmark
+    public StringBuilder appendReused() {
+        builder.setLength(0);
+        return TimeFormatter.appendTimeDifference(builder, millis, false);
+    }
+
+}
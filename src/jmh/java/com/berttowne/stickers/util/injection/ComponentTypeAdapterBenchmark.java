@@ -0,0 +1,63 @@
+package com.berttowne.stickers.util.injection;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link Component} {@link ComponentTypeAdapter} used for {@code stickers.json}, writing and
+ * reading a list of frames through Gson the same way the catalog does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentTypeAdapterBenchmark {
+
+    private static final Type FRAMES = new TypeToken<List<Component>>() { }.getType();
+
+    private final Gson gson = new GsonBuilder().registerTypeAdapter(Component.class, new ComponentTypeAdapter()).create();
+
+    private List<Component> frames;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        frames = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            frames.add(MiniMessage.miniMessage().deserialize("<white><font:minecraft:default>" + (char) (0xE000 + i)));
+        }
+
+        json = gson.toJson(frames, FRAMES);
+    }
+
+    @Benchmark
+    public String write() {
+        return gson.toJson(frames, FRAMES);
+    }
+
+    @Benchmark
+    public List<Component> read() {
+        return gson.fromJson(json, FRAMES);
+    }
+
+}
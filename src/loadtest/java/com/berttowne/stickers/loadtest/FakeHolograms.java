@@ -0,0 +1,104 @@
+package com.berttowne.stickers.loadtest;
+
+import com.berttowne.stickers.stickers.StickerHolograms;
+import org.bukkit.Location;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * In-memory {@link StickerHolograms} that keeps the text and location of every hologram and
+ * counts what would have been sent to players.
+ */
+public class FakeHolograms implements StickerHolograms {
+
+    private final ToIntFunction<Location> viewers;
+
+    private int live;
+    private int peak;
+    private long created;
+    private long updates;
+
+    /**
+     * @param viewers Counts the players that would see a hologram at a location.
+     */
+    public FakeHolograms(@NotNull ToIntFunction<Location> viewers) {
+        this.viewers = viewers;
+    }
+
+    @Override
+    public @NotNull StickerHologram create(@NotNull String name, @NotNull Location location, @NotNull List<String> lines) {
+        created++;
+        peak = Math.max(peak, ++live);
+
+        return new FakeHologram(location.clone(), new ArrayList<>(lines), viewers.applyAsInt(location));
+    }
+
+    @Override
+    public int getHologramCount() {
+        return live;
+    }
+
+    public int getPeakHologramCount() {
+        return peak;
+    }
+
+    public long getCreatedCount() {
+        return created;
+    }
+
+    /**
+     * @return The number of updates pushed to viewers.
+     */
+    public long getUpdateCount() {
+        return updates;
+    }
+
+    private final class FakeHologram implements StickerHologram {
+
+        private final List<String> lines;
+        private final int viewerCount;
+
+        private Location location;
+        private boolean removed;
+
+        private FakeHologram(Location location, List<String> lines, int viewerCount) {
+            this.location = location;
+            this.lines = lines;
+            this.viewerCount = viewerCount;
+        }
+
+        @Override
+        public void setLocation(@NotNull Location location) {
+            this.location = location;
+        }
+
+        @Override
+        public void setLine(int index, @NotNull String line) {
+            lines.set(index, line);
+        }
+
+        @Override
+        public void update() {
+            if (removed) throw new IllegalStateException("Updated a removed hologram at " + location);
+            updates++;
+        }
+
+        @Override
+        public int getViewerCount() {
+            return removed ? 0 : viewerCount;
+        }
+
+        @Override
+        public void remove() {
+            if (removed) throw new IllegalStateException("Removed a hologram twice at " + location);
+
+            removed = true;
+            live--;
+        }
+
+    }
+
+}
@@ -0,0 +1,214 @@
+package com.berttowne.stickers.loadtest;
+
+import com.berttowne.stickers.util.Scheduler;
+import io.papermc.paper.threadedregions.scheduler.AsyncScheduler;
+import io.papermc.paper.threadedregions.scheduler.GlobalRegionScheduler;
+import io.papermc.paper.threadedregions.scheduler.RegionScheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.util.RayTraceResult;
+import org.bukkit.util.Vector;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * The parts of a server the sticker code touches, backed by proxies: a {@link Server} whose
+ * schedulers are a {@link VirtualScheduler}, a flat world, and players that always look at the
+ * face of a block in front of them, and the plugin, with its config in memory and its data
+ * folder in a temporary directory. Anything else returns a default value.
+ * <p>
+ * {@link Bukkit#setServer(Server)} only accepts one server per JVM, so only one fake server
+ * can be installed per run.
+ */
+public class FakeServer {
+
+    private static final Logger LOGGER = Logger.getLogger("Stickers LoadTest");
+
+    private final VirtualClock clock;
+    private final VirtualScheduler scheduler;
+    private final World world;
+    private final YamlConfiguration config = new YamlConfiguration();
+    private final File dataFolder;
+    private Plugin plugin;
+
+    public FakeServer(long startMillis) throws IOException {
+        this.clock = new VirtualClock(startMillis);
+        this.scheduler = new VirtualScheduler(clock);
+        this.dataFolder = Files.createTempDirectory("stickers-loadtest").toFile();
+        this.world = proxy(World.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> "world";
+            case "getUID" -> new UUID(0, 0);
+            default -> null;
+        });
+    }
+
+    /**
+     * Make this the server returned by {@link Bukkit} and schedule every {@link Scheduler} task
+     * on the virtual scheduler.
+     */
+    public void install() {
+        GlobalRegionScheduler globalScheduler = proxy(GlobalRegionScheduler.class, (proxy, method, args) -> scheduler.handle(method, args));
+        RegionScheduler regionScheduler = proxy(RegionScheduler.class, (proxy, method, args) -> scheduler.handle(method, args));
+        AsyncScheduler asyncScheduler = proxy(AsyncScheduler.class, (proxy, method, args) -> scheduler.handle(method, args));
+
+        Server server = proxy(Server.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> "Stickers LoadTest";
+            case "getVersion", "getBukkitVersion", "getMinecraftVersion" -> "loadtest";
+            case "getLogger" -> LOGGER;
+            case "getGlobalRegionScheduler" -> globalScheduler;
+            case "getRegionScheduler" -> regionScheduler;
+            case "getAsyncScheduler" -> asyncScheduler;
+            case "getOnlinePlayers", "getWorlds" -> List.of();
+            case "isPrimaryThread", "isOwnedByCurrentRegion", "isGlobalTickThread" -> true;
+            default -> null;
+        });
+
+        Bukkit.setServer(server);
+        this.plugin = proxy(Plugin.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> "Stickers";
+            case "isEnabled" -> true;
+            case "getServer" -> server;
+            case "getLogger" -> LOGGER;
+            case "getConfig" -> config;
+            case "getDataFolder" -> dataFolder;
+            default -> null;
+        });
+        Scheduler.setOwner(plugin);
+    }
+
+    /**
+     * @return The plugin, once the server is {@link #install() installed}.
+     */
+    public @NotNull Plugin getPlugin() {
+        if (plugin == null) throw new IllegalStateException("The server is not installed");
+
+        return plugin;
+    }
+
+    /**
+     * @return The plugin's {@code config.yml}, empty unless set before the services load.
+     */
+    public @NotNull YamlConfiguration getConfig() {
+        return config;
+    }
+
+    public @NotNull VirtualClock getClock() {
+        return clock;
+    }
+
+    public @NotNull VirtualScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public @NotNull World getWorld() {
+        return world;
+    }
+
+    /**
+     * Create a player standing at a spot, looking north at the south face of the block in front
+     * of them, holding every permission.
+     *
+     * @param name The player name.
+     * @param x    The block x coordinate the player stands on.
+     * @param z    The block z coordinate the player stands on.
+     * @return The player.
+     */
+    public @NotNull Player player(@NotNull String name, int x, int z) {
+        UUID uniqueId = UUID.nameUUIDFromBytes(name.getBytes());
+        Block target = block(x, 64, z - 2);
+        Location eyes = new Location(world, x + 0.5, 65.62, z + 0.5, 180, 0);
+        Vector hit = new Vector(x + 0.5, 64.5, z - 1.0);
+        PersistentDataContainer data = persistentDataContainer();
+
+        return proxy(Player.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getName", "getDisplayName" -> name;
+            case "getUniqueId" -> uniqueId;
+            case "hasPermission", "isOnline", "isValid" -> true;
+            case "getWorld" -> world;
+            case "getLocation" -> new Location(world, x + 0.5, 64, z + 0.5, 180, 0);
+            case "getEyeLocation" -> eyes.clone();
+            case "getTargetBlockExact" -> target;
+            case "getTargetBlockFace" -> BlockFace.SOUTH;
+            case "rayTraceBlocks" -> new RayTraceResult(hit, target, BlockFace.SOUTH);
+            case "getPersistentDataContainer" -> data;
+            default -> null;
+        });
+    }
+
+    private @NotNull Block block(int x, int y, int z) {
+        return proxy(Block.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getX" -> x;
+            case "getY" -> y;
+            case "getZ" -> z;
+            case "getWorld" -> world;
+            case "getLocation" -> new Location(world, x, y, z);
+            case "getRelative" -> args[0] instanceof BlockFace face ? block(x + face.getModX(), y + face.getModY(), z + face.getModZ()) : null;
+            default -> null;
+        });
+    }
+
+    private static @NotNull PersistentDataContainer persistentDataContainer() {
+        Map<NamespacedKey, Object> values = new HashMap<>();
+
+        return proxy(PersistentDataContainer.class, (proxy, method, args) -> switch (method.getName()) {
+            case "has" -> values.containsKey((NamespacedKey) args[0]);
+            case "get" -> values.get((NamespacedKey) args[0]);
+            case "set" -> values.put((NamespacedKey) args[0], args[2]);
+            case "remove" -> values.remove((NamespacedKey) args[0]);
+            case "isEmpty" -> values.isEmpty();
+            default -> null;
+        });
+    }
+
+    /**
+     * Implement an interface with a handler, answering {@link Object} methods by identity and
+     * returning a zero value where the handler returns {@code null} for a primitive.
+     */
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(FakeServer.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals" -> { return proxy == args[0]; }
+                case "hashCode" -> { return System.identityHashCode(proxy); }
+                case "toString" -> { return "Fake" + type.getSimpleName(); }
+            }
+
+            Object result = handler.invoke(proxy, method, args == null ? new Object[0] : args);
+            return result != null ? result : zero(method);
+        }));
+    }
+
+    private static Object zero(Method method) {
+        Class<?> type = method.getReturnType();
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0D;
+        if (type == float.class) return 0F;
+        if (type == char.class) return '\0';
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+
+        return 0;
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.berttowne.stickers.loadtest;
+
+import com.berttowne.stickers.stickers.StickerHolograms;
+import com.berttowne.stickers.util.injection.ComponentTypeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.inject.AbstractModule;
+import net.kyori.adventure.text.Component;
+import org.bukkit.plugin.Plugin;
+
+import java.time.Clock;
+
+/**
+ * Binds what the plugin's {@code InjectionModule} binds on a server to the fakes, so the load
+ * test creates its services with Guice the same way the plugin does.
+ */
+public class LoadTestModule extends AbstractModule {
+
+    private final FakeServer server;
+    private final FakeHolograms holograms;
+
+    /**
+     * @param server    The installed server, whose plugin and clock are bound.
+     * @param holograms The holograms placed stickers are shown with.
+     */
+    public LoadTestModule(FakeServer server, FakeHolograms holograms) {
+        this.server = server;
+        this.holograms = holograms;
+    }
+
+    @Override
+    protected void configure() {
+        bind(Plugin.class).toInstance(server.getPlugin());
+        bind(Clock.class).toInstance(server.getClock());
+        bind(StickerHolograms.class).toInstance(holograms);
+        bind(Gson.class).toInstance(new GsonBuilder()
+                .registerTypeAdapter(Component.class, new ComponentTypeAdapter())
+                .create());
+    }
+
+}
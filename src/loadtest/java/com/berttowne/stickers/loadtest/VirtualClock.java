@@ -0,0 +1,52 @@
+package com.berttowne.stickers.loadtest;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A clock that only moves when the {@link VirtualScheduler} ticks, one tick being 50ms.
+ */
+public class VirtualClock extends Clock {
+
+    public static final long MILLIS_PER_TICK = 50;
+
+    private final long startMillis;
+    private volatile long tick;
+
+    public VirtualClock(long startMillis) {
+        this.startMillis = startMillis;
+    }
+
+    void advance() {
+        tick++;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    @Override
+    public long millis() {
+        return startMillis + tick * MILLIS_PER_TICK;
+    }
+
+    @Override
+    public @NotNull Instant instant() {
+        return Instant.ofEpochMilli(millis());
+    }
+
+    @Override
+    public @NotNull ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public @NotNull Clock withZone(ZoneId zone) {
+        return this;
+    }
+
+}
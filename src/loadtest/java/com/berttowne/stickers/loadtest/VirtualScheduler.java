@@ -0,0 +1,180 @@
+package com.berttowne.stickers.loadtest;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A deterministic, single threaded stand-in for the Paper global, region and async schedulers.
+ * Tasks only run when {@link #tick()} is called, in the order they are due and then in the
+ * order they were scheduled. Async delays are rounded up to whole ticks.
+ */
+public class VirtualScheduler {
+
+    private final VirtualClock clock;
+    private final PriorityQueue<VirtualTask> queue = new PriorityQueue<>();
+    private long sequence;
+
+    public VirtualScheduler(@NotNull VirtualClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Advance the clock by one tick and run every task that is due.
+     *
+     * @return The number of task runs.
+     */
+    public int tick() {
+        clock.advance();
+        long now = clock.getTick();
+        int runs = 0;
+
+        while (!queue.isEmpty() && queue.peek().nextRun <= now) {
+            VirtualTask task = queue.poll();
+            if (task.state == ScheduledTask.ExecutionState.CANCELLED) continue;
+
+            task.state = ScheduledTask.ExecutionState.RUNNING;
+            task.action.accept(task);
+            runs++;
+
+            if (task.state == ScheduledTask.ExecutionState.CANCELLED_RUNNING) {
+                task.state = ScheduledTask.ExecutionState.CANCELLED;
+            } else if (task.period > 0) {
+                task.state = ScheduledTask.ExecutionState.IDLE;
+                schedule(task, now + task.period);
+            } else {
+                task.state = ScheduledTask.ExecutionState.FINISHED;
+            }
+        }
+
+        return runs;
+    }
+
+    /**
+     * @return The number of tasks waiting to run, including repeating tasks between runs.
+     */
+    public int getPendingTaskCount() {
+        return (int) queue.stream().filter(task -> task.state != ScheduledTask.ExecutionState.CANCELLED).count();
+    }
+
+    /**
+     * Handle a call to any of the Paper scheduler interfaces, by method name: {@code run},
+     * {@code runNow} and {@code execute} run on the next tick, {@code runDelayed} after the first
+     * {@code long} argument and {@code runAtFixedRate} after the first and then every second
+     * {@code long} argument, converted from a {@link TimeUnit} argument if there is one.
+     */
+    Object handle(@NotNull Method method, Object @NotNull [] args) {
+        Plugin plugin = null;
+        Consumer<ScheduledTask> action = null;
+        TimeUnit unit = null;
+        List<Long> times = new ArrayList<>(2);
+
+        for (Object arg : args) {
+            if (arg instanceof Plugin owner) plugin = owner;
+            else if (arg instanceof Consumer<?> consumer) action = cast(consumer);
+            else if (arg instanceof Runnable runnable) action = task -> runnable.run();
+            else if (arg instanceof TimeUnit timeUnit) unit = timeUnit;
+            else if (arg instanceof Long time) times.add(time);
+        }
+
+        if (method.getName().equals("cancelTasks")) {
+            queue.forEach(VirtualTask::cancel);
+            queue.clear();
+            return null;
+        }
+
+        if (action == null) throw new UnsupportedOperationException("VirtualScheduler does not support " + method);
+
+        long delay = switch (method.getName()) {
+            case "runDelayed", "runAtFixedRate" -> toTicks(times.get(0), unit);
+            default -> 1;
+        };
+        long period = method.getName().equals("runAtFixedRate") ? Math.max(1, toTicks(times.get(1), unit)) : 0;
+
+        VirtualTask task = new VirtualTask(plugin, action, period);
+        schedule(task, clock.getTick() + Math.max(1, delay));
+
+        return method.getReturnType() == void.class ? null : task;
+    }
+
+    private void schedule(VirtualTask task, long tick) {
+        task.nextRun = tick;
+        task.order = sequence++;
+        queue.add(task);
+    }
+
+    private static long toTicks(long time, TimeUnit unit) {
+        if (unit == null) return time;
+
+        long millis = unit.toMillis(time);
+        return (millis + VirtualClock.MILLIS_PER_TICK - 1) / VirtualClock.MILLIS_PER_TICK;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<ScheduledTask> cast(Consumer<?> consumer) {
+        return (Consumer<ScheduledTask>) consumer;
+    }
+
+    private static final class VirtualTask implements ScheduledTask, Comparable<VirtualTask> {
+
+        private final Plugin plugin;
+        private final Consumer<ScheduledTask> action;
+        private final long period;
+
+        private long nextRun;
+        private long order;
+        private ExecutionState state = ExecutionState.IDLE;
+
+        private VirtualTask(Plugin plugin, Consumer<ScheduledTask> action, long period) {
+            this.plugin = plugin;
+            this.action = action;
+            this.period = period;
+        }
+
+        @Override
+        public @NotNull Plugin getOwningPlugin() {
+            return plugin;
+        }
+
+        @Override
+        public boolean isRepeatingTask() {
+            return period > 0;
+        }
+
+        @Override
+        public @NotNull CancelledState cancel() {
+            return switch (state) {
+                case IDLE -> {
+                    state = ExecutionState.CANCELLED;
+                    yield CancelledState.CANCELLED_BY_CALLER;
+                }
+                case RUNNING -> {
+                    state = ExecutionState.CANCELLED_RUNNING;
+                    yield period > 0 ? CancelledState.NEXT_RUNS_CANCELLED : CancelledState.RUNNING;
+                }
+                case FINISHED -> CancelledState.ALREADY_EXECUTED;
+                case CANCELLED, CANCELLED_RUNNING -> CancelledState.CANCELLED_ALREADY;
+            };
+        }
+
+        @Override
+        public @NotNull ExecutionState getExecutionState() {
+            return state;
+        }
+
+        @Override
+        public int compareTo(@NotNull VirtualTask other) {
+            int byTick = Long.compare(nextRun, other.nextRun);
+            return byTick != 0 ? byTick : Long.compare(order, other.order);
+        }
+
+    }
+
+}
@@ -0,0 +1,208 @@
+package com.berttowne.stickers.stickers;
+
+import com.berttowne.stickers.loadtest.FakeHolograms;
+import com.berttowne.stickers.loadtest.FakeServer;
+import com.berttowne.stickers.loadtest.LoadTestModule;
+import com.berttowne.stickers.util.Scheduler;
+import com.berttowne.stickers.util.config.ConfigService;
+import com.berttowne.stickers.util.messages.Messages;
+import com.berttowne.stickers.util.metrics.Metrics;
+import com.google.gson.GsonBuilder;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Simulates players placing stickers on a fake server for a number of ticks, measuring the CPU
+ * time and allocation of every tick on the (single) simulation thread.
+ * <p>
+ * Every player stands on a grid and places a random sticker as soon as their cooldown allows,
+ * plus a random delay. Animated stickers update their holograms, stickers expire through the
+ * scheduler, and everything runs on a virtual clock, so runs with the same arguments do the
+ * same work. Run with {@code ./gradlew loadTest -Ploadtest.args="--players=2000 --ticks=12000"}.
+ * <p>
+ * Arguments, all optional: {@code --players}, {@code --ticks}, {@code --stickers},
+ * {@code --cooldown} (ms), {@code --seed}, {@code --warmup} (ticks left out of the statistics),
+ * {@code --report} (path of a JSON report) and {@code --max-p99-micros}, which fails the run
+ * when the 99th percentile tick CPU time is higher.
+ */
+public final class StickerLoadTest {
+
+    private static final int SPACING = 4;        // blocks between players
+    private static final int VIEW_DISTANCE = 32; // blocks a hologram is visible from
+
+    private StickerLoadTest() { }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parse(args);
+        int playerCount = Integer.parseInt(options.getOrDefault("players", "1000"));
+        int ticks = Integer.parseInt(options.getOrDefault("ticks", "6000"));
+        int stickerCount = Integer.parseInt(options.getOrDefault("stickers", "200"));
+        long cooldown = Long.parseLong(options.getOrDefault("cooldown", "30000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        int warmup = Math.min(ticks - 1, Integer.parseInt(options.getOrDefault("warmup", "200")));
+
+        FakeServer server = new FakeServer(1_700_000_000_000L);
+        server.install();
+        server.getConfig().set("sticker-cooldown", cooldown);
+
+        int columns = (int) Math.ceil(Math.sqrt(playerCount));
+        FakeHolograms holograms = new FakeHolograms(location -> viewers(location, playerCount, columns));
+
+        // Load the services the placement path uses in dependency order, as the plugin does
+        Injector injector = Guice.createInjector(new LoadTestModule(server, holograms));
+        injector.getInstance(ConfigService.class).onLoad();
+        injector.getInstance(Messages.class).onLoad();
+        StickerService stickerService = injector.getInstance(StickerService.class);
+        stickerService.onLoad();
+        stickerService.setStickers(StickerFixtures.stickers(stickerCount));
+
+        Random random = new Random(seed);
+        long cooldownTicks = cooldown / 50 + 1;
+        List<Player> players = new ArrayList<>(playerCount);
+        long[] nextPlacement = new long[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            players.add(server.player("Player" + i, (i % columns) * SPACING, (i / columns) * SPACING));
+            nextPlacement[i] = 1 + random.nextInt((int) cooldownTicks);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long[] cpuNanos = new long[ticks];
+        long[] allocatedBytes = new long[ticks];
+        int peakPlaced = 0;
+        int peakTasks = 0;
+
+        for (int tick = 0; tick < ticks; tick++) {
+            long now = server.getClock().getTick() + 1;
+            long cpuStart = threads.getCurrentThreadCpuTime();
+            long allocatedStart = threads.getThreadAllocatedBytes(threadId);
+
+            for (int i = 0; i < playerCount; i++) {
+                if (nextPlacement[i] != now) continue;
+
+                stickerService.placeSticker(players.get(i), stickerService.getCatalog().get(random.nextInt(stickerCount)));
+                nextPlacement[i] = now + cooldownTicks + random.nextInt(200);
+            }
+
+            server.getScheduler().tick();
+
+            cpuNanos[tick] = threads.getCurrentThreadCpuTime() - cpuStart;
+            allocatedBytes[tick] = threads.getThreadAllocatedBytes(threadId) - allocatedStart;
+            peakPlaced = Math.max(peakPlaced, stickerService.getPlacedStickerCount());
+            peakTasks = Math.max(peakTasks, server.getScheduler().getPendingTaskCount());
+        }
+
+        long[] measuredCpu = Arrays.copyOfRange(cpuNanos, warmup, ticks);
+        long[] measuredAllocated = Arrays.copyOfRange(allocatedBytes, warmup, ticks);
+        Arrays.sort(measuredCpu);
+        Arrays.sort(measuredAllocated);
+
+        Report report = new Report(
+                playerCount, ticks, warmup, stickerCount, cooldown, seed,
+                Metrics.counter("stickers_placed_total", "Stickers placed").get(),
+                Metrics.counter("stickers_place_rejected_total", "Placements refused (permission, target or cooldown)").get(),
+                Metrics.counter("stickers_expired_total", "Placed stickers removed after their cooldown").get(),
+                holograms.getCreatedCount(),
+                holograms.getUpdateCount(),
+                micros(mean(measuredCpu)), micros(percentile(measuredCpu, 0.5)), micros(percentile(measuredCpu, 0.99)), micros(measuredCpu[measuredCpu.length - 1]),
+                mean(measuredAllocated) / 1024, measuredAllocated[measuredAllocated.length - 1] / 1024.0,
+                Arrays.stream(allocatedBytes).sum() / (1024.0 * 1024.0),
+                holograms.getPeakHologramCount(), peakPlaced, peakTasks,
+                new LiveCounts(stickerService.getPlacedStickerCount(), holograms.getHologramCount(),
+                        server.getScheduler().getPendingTaskCount(), Scheduler.getConditionalTaskCount())
+        );
+
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(report);
+        System.out.println(json);
+
+        if (options.containsKey("report")) {
+            Path path = Path.of(options.get("report"));
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                writer.write(json);
+            }
+        }
+
+        if (options.containsKey("max-p99-micros") && report.tickCpuP99Micros() > Double.parseDouble(options.get("max-p99-micros"))) {
+            System.err.printf("p99 tick CPU time %.1fµs is over the %sµs limit%n", report.tickCpuP99Micros(), options.get("max-p99-micros"));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Count the players within {@link #VIEW_DISTANCE} of a location, looking only at the grid
+     * cells around it.
+     */
+    private static int viewers(Location location, int playerCount, int columns) {
+        int cells = VIEW_DISTANCE / SPACING;
+        int column = Math.floorDiv(location.getBlockX(), SPACING);
+        int row = Math.floorDiv(location.getBlockZ(), SPACING);
+        int viewers = 0;
+
+        for (int r = Math.max(0, row - cells); r <= row + cells + 1; r++) {
+            for (int c = Math.max(0, column - cells); c <= Math.min(columns - 1, column + cells + 1); c++) {
+                if (r * columns + c >= playerCount) continue;
+
+                double dx = c * SPACING - location.getX();
+                double dz = r * SPACING - location.getZ();
+                if (dx * dx + dz * dz <= VIEW_DISTANCE * VIEW_DISTANCE) viewers++;
+            }
+        }
+
+        return viewers;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("Unexpected argument " + arg);
+
+            int separator = arg.indexOf('=');
+            if (separator < 0) options.put(arg.substring(2), "true");
+            else options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        return options;
+    }
+
+    private static double mean(long[] values) {
+        return values.length == 0 ? 0 : Arrays.stream(values).average().orElse(0);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static double micros(double nanos) {
+        return nanos / 1000;
+    }
+
+    private record Report(int players, int ticks, int warmupTicks, int stickers, long cooldownMillis, long seed,
+                          long placed, long rejected, long expired, long hologramsCreated, long hologramUpdates,
+                          double tickCpuMeanMicros, double tickCpuP50Micros, double tickCpuP99Micros, double tickCpuMaxMicros,
+                          double tickAllocatedMeanKiB, double tickAllocatedMaxKiB, double totalAllocatedMiB,
+                          int peakHolograms, int peakPlacedStickers, int peakScheduledTasks, LiveCounts live) { }
+
+    /**
+     * Objects still alive when the simulation ends.
+     */
+    private record LiveCounts(int placedStickers, int holograms, int scheduledTasks, int conditionalTasks) { }
+
+}
@@ -1,44 +1,133 @@
 package com.berttowne.stickers;
 
+import com.google.common.collect.Lists;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import io.papermc.paper.plugin.loader.PluginClasspathBuilder;
 import io.papermc.paper.plugin.loader.PluginLoader;
+import io.papermc.paper.plugin.loader.library.LibraryLoadingException;
+import io.papermc.paper.plugin.loader.library.impl.JarLibrary;
 import io.papermc.paper.plugin.loader.library.impl.MavenLibraryResolver;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Stream;
 
 @SuppressWarnings("UnstableApiUsage")
 public class StickersLoader implements PluginLoader {
 
+    private static final String LOCK_FILE = "libraries.lock.json";
+    private static final String VERIFY_PROPERTY = "stickers.libraries.verify";
+
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
     /**
      * This method is called to add dependencies to the classloader, removing the need for shading.
+     * <p>
+     * The jars a library list resolves to are remembered in a lock file in the data folder, keyed
+     * by the hash of the list, so later boots add them directly without resolving anything and
+     * the server can start without network access. Start the server with
+     * {@code -Dstickers.libraries.verify=true} to check the checksum of every locked jar; by
+     * default only their sizes are checked. Missing or changed jars are resolved again.
      *
      * @param classpathBuilder The classpath builder to add dependencies to.
      */
     @Override
     public void classloader(@NotNull PluginClasspathBuilder classpathBuilder) {
-        MavenLibraryResolver resolver = new MavenLibraryResolver();
+        ComponentLogger logger = classpathBuilder.getContext().getLogger();
         PluginLibraries pluginLibraries = load();
+        String key = pluginLibraries.hash();
+        Path lockFile = classpathBuilder.getContext().getDataDirectory().resolve(LOCK_FILE);
+
+        LibraryLock lock = readLock(lockFile, logger);
+        if (lock != null && lock.key().equals(key)) {
+            String problem = lock.verify(Boolean.getBoolean(VERIFY_PROPERTY));
+            if (problem == null) {
+                lock.jars().forEach(jar -> classpathBuilder.addLibrary(new JarLibrary(Path.of(jar.path()))));
+                return;
+            }
+
+            logger.warn("Locked library {}, resolving the libraries again", problem);
+        }
+
+        MavenLibraryResolver resolver = new MavenLibraryResolver();
         pluginLibraries.asDependencies().forEach(resolver::addDependency);
         pluginLibraries.asRepositories().forEach(resolver::addRepository);
-        classpathBuilder.addLibrary(resolver);
+
+        List<Path> resolved = Lists.newArrayList();
+        try {
+            resolver.register(resolved::add);
+        } catch (LibraryLoadingException e) {
+            throw new RuntimeException("Could not resolve the plugin libraries", e);
+        }
+
+        resolved.forEach(jar -> classpathBuilder.addLibrary(new JarLibrary(jar)));
+        writeLock(lockFile, LibraryLock.of(key, resolved), logger);
     }
 
     private PluginLibraries load() {
         try (var in = getClass().getResourceAsStream("/paper-libraries.json")) {
             if (in == null) throw new IOException("Could not find /paper-libraries.json");
 
-            return new Gson().fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), PluginLibraries.class);
+            return gson.fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), PluginLibraries.class);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private @Nullable LibraryLock readLock(Path lockFile, ComponentLogger logger) {
+        if (!Files.exists(lockFile)) return null;
+
+        try (Reader reader = Files.newBufferedReader(lockFile, StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, LibraryLock.class);
+        } catch (Exception e) {
+            logger.warn("Could not read {}, resolving the libraries again: {}", LOCK_FILE, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeLock(Path lockFile, LibraryLock lock, ComponentLogger logger) {
+        try {
+            Files.createDirectories(lockFile.getParent());
+
+            try (Writer writer = Files.newBufferedWriter(lockFile, StandardCharsets.UTF_8)) {
+                gson.toJson(lock, writer);
+            }
         } catch (IOException e) {
+            logger.warn("Could not write {}, the libraries will be resolved again on the next boot: {}", LOCK_FILE, e.getMessage());
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
     }
@@ -53,6 +142,63 @@ public class StickersLoader implements PluginLoader {
             return repositories.entrySet().stream()
                     .map(e -> new RemoteRepository.Builder(e.getKey(), "default", e.getValue()).build());
         }
+
+        /**
+         * @return A hash of the repositories and dependencies, independent of repository order.
+         */
+        public String hash() {
+            StringBuilder canonical = new StringBuilder();
+            new TreeMap<>(repositories).forEach((id, url) -> canonical.append(id).append('=').append(url).append('\n'));
+            dependencies.forEach(dependency -> canonical.append(dependency).append('\n'));
+
+            try {
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        }
     }
 
-}
\ No newline at end of file
+    private record LibraryLock(String key, List<LockedJar> jars) {
+
+        private static LibraryLock of(String key, List<Path> jars) {
+            List<LockedJar> locked = Lists.newArrayList();
+
+            for (Path jar : jars) {
+                try {
+                    locked.add(new LockedJar(jar.toString(), Files.size(jar), sha256(jar)));
+                } catch (IOException e) {
+                    throw new RuntimeException("Could not checksum " + jar, e);
+                }
+            }
+
+            return new LibraryLock(key, locked);
+        }
+
+        /**
+         * @param checksums Whether to compare checksums, not only sizes.
+         * @return A description of the first missing or changed jar, or {@code null} if all are intact.
+         */
+        private @Nullable String verify(boolean checksums) {
+            if (jars == null) return "list is missing";
+
+            for (LockedJar jar : jars) {
+                Path path = Path.of(jar.path());
+
+                try {
+                    if (!Files.isRegularFile(path)) return jar.path() + " is missing";
+                    if (Files.size(path) != jar.size()) return jar.path() + " changed size";
+                    if (checksums && !sha256(path).equals(jar.sha256())) return jar.path() + " failed its checksum";
+                } catch (IOException e) {
+                    return jar.path() + " could not be read";
+                }
+            }
+
+            return null;
+        }
+
+    }
+
+    private record LockedJar(String path, long size, String sha256) { }
+
+}
@@ -1,15 +1,27 @@
 package com.berttowne.stickers;
 
+import com.berttowne.stickers.util.Scheduler;
+import com.berttowne.stickers.util.config.StickersConfig;
 import com.berttowne.stickers.util.injection.*;
+import com.berttowne.stickers.util.metrics.StartupProfiler;
+import com.google.gson.Gson;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
-import org.bukkit.event.Listener;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
 public final class StickersPlugin extends JavaPlugin implements InjectionRoot {
 
+    private static final long IO_DRAIN_SECONDS = 10;
+
     @Inject private Injector injector;
 
+    private ServiceRegistry serviceRegistry;
+
     @Override
     public void onLoad() {
         AppInjector.registerInjectionRoot(this);
@@ -18,24 +30,59 @@ public final class StickersPlugin extends JavaPlugin implements InjectionRoot {
 
     @Override
     public void onEnable() {
-        AppInjector.boot();
+        StartupProfiler.begin();
 
         this.saveDefaultConfig();
 
+        // Validate it now, services first read it from worker threads
+        StickersConfig config;
+        try {
+            config = StickersConfig.from(getConfig());
+        } catch (IllegalArgumentException e) {
+            getLogger().severe("** INVALID CONFIG: " + e.getMessage() + " **");
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
+
+        AppInjector.setStage(config.injectorStage());
+        AppInjector.boot();
+
         // Boot Services and register Listeners
-        GuiceServiceLoader.load(Service.class, getClassLoader()).forEach(Service::onLoad);
-        GuiceServiceLoader.load(Listener.class, getClassLoader()).forEach(listener -> getServer().getPluginManager().registerEvents(listener, this));
+        this.serviceRegistry = StartupProfiler.time("service", "discover services", () -> ServiceRegistry.build(injector, getClassLoader(), getLogger()));
+        serviceRegistry.load();
+        StartupProfiler.time("service", "register listeners", () -> serviceRegistry.registerListeners(this));
 
-        GuiceServiceLoader.load(Service.class, getClassLoader()).forEach(Service::onEnable);
+        serviceRegistry.enable();
+
+        StartupProfiler.finish();
+        getLogger().info(StartupProfiler.report());
+        saveStartupProfile();
+    }
+
+    private void saveStartupProfile() {
+        try (FileWriter writer = new FileWriter(new File(getDataFolder(), "startup-profile.json"))) {
+            injector.getInstance(Gson.class).toJson(StartupProfiler.getSteps(), writer);
+        } catch (IOException e) {
+            getLogger().warning("Could not write startup-profile.json: " + e.getMessage());
+        }
     }
 
     @Override
     public void onDisable() {
-        GuiceServiceLoader.load(Service.class, getClassLoader()).forEach(Service::onDisable);
+        if (serviceRegistry != null) serviceRegistry.disable();
+
+        // Let saves started while disabling finish before the plugin's classes go away
+        if (!Scheduler.drainIo(IO_DRAIN_SECONDS, TimeUnit.SECONDS)) {
+            getLogger().warning("I/O tasks were still running after " + IO_DRAIN_SECONDS + " seconds and were interrupted");
+        }
     }
 
     public Injector getInjector() {
         return injector;
     }
 
+    public ServiceRegistry getServiceRegistry() {
+        return serviceRegistry;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.berttowne.stickers.stickers;
+
+import com.google.common.collect.Lists;
+import com.google.inject.Singleton;
+import de.oliver.fancyholograms.api.FancyHologramsPlugin;
+import de.oliver.fancyholograms.api.HologramManager;
+import de.oliver.fancyholograms.api.data.TextHologramData;
+import de.oliver.fancyholograms.api.hologram.Hologram;
+import org.bukkit.Color;
+import org.bukkit.Location;
+import org.bukkit.entity.Display;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link StickerHolograms} backed by FancyHolograms: fixed, transparent, non-persistent text
+ * holograms.
+ */
+@Singleton
+public class FancyStickerHolograms implements StickerHolograms {
+
+    private final AtomicInteger hologramCount = new AtomicInteger();
+
+    @Override
+    public @NotNull StickerHologram create(@NotNull String name, @NotNull Location location, @NotNull List<String> lines) {
+        TextHologramData data = new TextHologramData(name, location);
+        data.setBillboard(Display.Billboard.FIXED);
+        data.setBackground(Color.fromARGB(0));
+        data.setTextShadow(false);
+        data.setSeeThrough(false);
+        data.setPersistent(false);
+        data.setText(lines);
+
+        HologramManager hologramManager = FancyHologramsPlugin.get().getHologramManager();
+        Hologram hologram = hologramManager.create(data);
+        hologramManager.addHologram(hologram);
+        hologramCount.incrementAndGet();
+
+        return new FancyHologram(hologramManager, hologram, data);
+    }
+
+    @Override
+    public int getHologramCount() {
+        return hologramCount.get();
+    }
+
+    private final class FancyHologram implements StickerHologram {
+
+        private final HologramManager hologramManager;
+        private final Hologram hologram;
+        private final TextHologramData data;
+
+        private FancyHologram(HologramManager hologramManager, Hologram hologram, TextHologramData data) {
+            this.hologramManager = hologramManager;
+            this.hologram = hologram;
+            this.data = data;
+        }
+
+        @Override
+        public void setLocation(@NotNull Location location) {
+            data.setLocation(location);
+        }
+
+        @Override
+        public void setLine(int index, @NotNull String line) {
+            List<String> lines = Lists.newArrayList(data.getText());
+            lines.set(index, line);
+            data.setText(lines);
+        }
+
+        @Override
+        public void update() {
+            hologram.forceUpdate();
+            hologram.queueUpdate();
+        }
+
+        @Override
+        public int getViewerCount() {
+            return hologram.getViewers().size();
+        }
+
+        @Override
+        public void remove() {
+            hologramManager.removeHologram(hologram);
+            hologramCount.decrementAndGet();
+        }
+
+    }
+
+}
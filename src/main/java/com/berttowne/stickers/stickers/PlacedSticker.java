@@ -1,110 +1,150 @@
 package com.berttowne.stickers.stickers;
 
-import com.berttowne.stickers.StickersPlugin;
+import com.berttowne.stickers.util.ComponentCache;
 import com.berttowne.stickers.util.Scheduler;
-import de.oliver.fancyholograms.api.FancyHologramsPlugin;
-import de.oliver.fancyholograms.api.HologramManager;
-import de.oliver.fancyholograms.api.data.HologramData;
-import de.oliver.fancyholograms.api.data.TextHologramData;
-import de.oliver.fancyholograms.api.hologram.Hologram;
-import net.kyori.adventure.text.minimessage.MiniMessage;
-import org.bukkit.Color;
+import com.berttowne.stickers.util.metrics.Metrics;
+import com.berttowne.stickers.util.metrics.StickerEvents;
+import net.kyori.adventure.text.Component;
 import org.bukkit.Location;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
-import org.bukkit.entity.Display;
 import org.bukkit.entity.Player;
 import org.bukkit.util.RayTraceResult;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class PlacedSticker {
 
-    private final StickerService stickerService = StickersPlugin.getPlugin(StickersPlugin.class).getInjector()
-            .getInstance(StickerService.class);
-    private final HologramManager hologramManager = FancyHologramsPlugin.get().getHologramManager();
+    private static final Metrics.Counter FRAME_UPDATES = Metrics.counter("stickers_frame_updates_total", "Animated sticker frame changes pushed to holograms");
+
+    private final StickerService stickerService;
 
     private final Sticker sticker;
-    private final Hologram hologram;
+    private final StickerHolograms.StickerHologram hologram;
     private final long placedAt;
     private final Player placedBy;
 
     private int currentFrame = 0;
+    private long elapsedTicks = 0;
     private boolean active = true;
 
-    public PlacedSticker(@NotNull Sticker sticker, @NotNull Player placedBy, @NotNull Block block, BlockFace blockFace, long stickerCooldown) {
+    public PlacedSticker(@NotNull StickerService stickerService, @NotNull StickerHolograms holograms, @NotNull Sticker sticker,
+                         @NotNull Player placedBy, @NotNull Block block, BlockFace blockFace) {
+        this.stickerService = stickerService;
         this.sticker = sticker;
-        this.placedAt = System.currentTimeMillis();
+        this.placedAt = stickerService.getClock().millis();
         this.placedBy = placedBy;
 
-        Location location = block.getRelative(blockFace).getLocation();
-        TextHologramData hologramData = new TextHologramData(placedBy.getName(), location);
-        hologramData.setBillboard(Display.Billboard.FIXED);
-        hologramData.setBackground(Color.fromARGB(0));
-        hologramData.setTextShadow(false);
-        hologramData.setSeeThrough(false);
-        hologramData.setPersistent(false);
-        hologramData.setText(List.of(
+        StickerEvents.HologramCreate event = new StickerEvents.HologramCreate();
+        event.begin();
+
+        this.hologram = holograms.create(placedBy.getName(), block.getRelative(blockFace).getLocation(), List.of(
                 "<yellow>Placed by:",
                 "<white>" + placedBy.getName(),
-                MiniMessage.miniMessage().serialize(sticker.getFrame(0))
+                serializeFrame(sticker.getTimeline().frameAt(0))
         ));
 
-        this.hologram = hologramManager.create(hologramData);
-        hologramManager.addHologram(hologram);
+        commit(event);
 
         adjustRotation(blockFace);
-        startFrameTask(sticker.getRefreshRate());
+        startFrameTask(sticker.getTimeline());
     }
 
     private void adjustRotation(@NotNull BlockFace blockFace) {
-        HologramData data = hologram.getData();
-
         RayTraceResult rayTraceResult = placedBy.rayTraceBlocks(5);
         if (rayTraceResult == null) return;
 
-        Location hitLocation = rayTraceResult.getHitPosition().toLocation(placedBy.getWorld());
-        data.setLocation(hitLocation);
-        
+        Location location = rayTraceResult.getHitPosition().toLocation(placedBy.getWorld());
+
         switch (blockFace) {
-            case UP -> data.setLocation(data.getLocation().setRotation(getYaw(), -180).add(0, 0.02, 0));
-            case DOWN -> data.setLocation(data.getLocation().setRotation(getYaw(), 180).subtract(0, 0.02, 0));
-            case NORTH -> data.setLocation(data.getLocation().setRotation(180, 0).subtract(0, 0, 0.02));
-            case EAST -> data.setLocation(data.getLocation().setRotation(-90, 0).add(0.02, 0, 0));
-            case SOUTH -> data.setLocation(data.getLocation().setRotation(0, 0).add(0, 0, 0.02));
-            case WEST -> data.setLocation(data.getLocation().setRotation(90, 0).subtract(0.02, 0, 0));
-            default -> data.setLocation(data.getLocation().setRotation(0, 0));
+            case UP -> location.setRotation(getYaw(), -180).add(0, 0.02, 0);
+            case DOWN -> location.setRotation(getYaw(), 180).subtract(0, 0.02, 0);
+            case NORTH -> location.setRotation(180, 0).subtract(0, 0, 0.02);
+            case EAST -> location.setRotation(-90, 0).add(0.02, 0, 0);
+            case SOUTH -> location.setRotation(0, 0).add(0, 0, 0.02);
+            case WEST -> location.setRotation(90, 0).subtract(0.02, 0, 0);
+            default -> location.setRotation(0, 0);
         }
 
-        hologram.forceUpdate();
-        hologram.queueUpdate();
+        hologram.setLocation(location);
+        hologram.update();
     }
 
-    private void startFrameTask(long refreshRate) {
-        if (sticker.getFrames().size() <= 1) return; // Skip for static stickers
+    private void startFrameTask(@NotNull StickerTimeline timeline) {
+        if (!timeline.isAnimated()) return; // Skip for static stickers
 
-        TextHologramData data = (TextHologramData) hologram.getData();
+        currentFrame = timeline.frameIndexAt(0);
 
-        Scheduler.repeatUntil(() -> {
+        // Wake up only at points where the frame may change, and only push an update when it does
+        Scheduler.repeatUntil(Scheduler.timed("sticker frames", () -> {
             if (!active) return;
 
-            currentFrame = (currentFrame + 1) % sticker.getFrames().size();
-            data.setText(List.of(data.getText().get(0), data.getText().get(1),
-                    MiniMessage.miniMessage().serialize(sticker.getFrame(currentFrame))));
+            elapsedTicks += timeline.getStep();
+            int frame = timeline.frameIndexAt(elapsedTicks);
+            if (frame == currentFrame) return;
+
+            StickerEvents.FrameUpdate event = new StickerEvents.FrameUpdate();
+            event.begin();
+
+            currentFrame = frame;
+            hologram.setLine(2, serializeFrame(timeline.getFrame(frame)));
+            hologram.update();
+            FRAME_UPDATES.increment();
+
+            event.frame = frame;
+            commit(event);
+        }, timeline.getStep() * 50L, TimeUnit.MILLISECONDS), timeline.getStep(), timeline.getStep(), () -> placedAt + stickerService.getStickerCooldown() <= stickerService.getClock().millis());
+    }
 
-            hologram.forceUpdate();
-            hologram.queueUpdate();
-        }, refreshRate, refreshRate, () -> placedAt + stickerService.getStickerCooldown() <= System.currentTimeMillis());
+    /**
+     * @param frame The frame to show.
+     * @return The hologram line for the frame.
+     */
+    static @NotNull String serializeFrame(@NotNull Component frame) {
+        return ComponentCache.serialize(frame);
     }
 
     private float getYaw() {
         return (placedBy.getEyeLocation().getYaw() + 180) % 360;
     }
 
+    /**
+     * Commit a JFR event about this sticker, filling in its fields only if it will be recorded.
+     */
+    void commit(@NotNull StickerEvents.StickerEvent event) {
+        event.end();
+        if (!event.shouldCommit()) return;
+
+        event.stickerName = sticker.getName();
+        event.frameCount = sticker.getTimeline().getFrameCount();
+        event.viewers = getViewerCount();
+        event.commit();
+    }
+
     public final void delete() {
-        hologramManager.removeHologram(hologram);
+        StickerEvents.HologramRemove event = new StickerEvents.HologramRemove();
+        event.begin();
+
+        int viewers = event.isEnabled() ? getViewerCount() : 0; // Not known once the hologram is gone
+        hologram.remove();
         this.active = false;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.stickerName = sticker.getName();
+            event.frameCount = sticker.getTimeline().getFrameCount();
+            event.viewers = viewers;
+            event.commit();
+        }
+    }
+
+    /**
+     * @return The number of players the hologram is currently shown to.
+     */
+    public int getViewerCount() {
+        return hologram.getViewerCount();
     }
 
     public Sticker getSticker() {
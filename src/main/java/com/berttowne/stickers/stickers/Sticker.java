@@ -9,13 +9,21 @@ public class Sticker {
     private String name;
     private List<Component> description;
     private List<Component> frames;
+    private List<Integer> frameDurations; // in ticks, optional per-frame hold times
     private int refreshRate; // in ticks
     private String permission;
 
+    private transient volatile StickerTimeline timeline;
+
     public Sticker(String name, List<Component> description, List<Component> frames, int refreshRate, String permission) {
+        this(name, description, frames, null, refreshRate, permission);
+    }
+
+    public Sticker(String name, List<Component> description, List<Component> frames, List<Integer> frameDurations, int refreshRate, String permission) {
         this.name = name;
         this.description = description;
         this.frames = frames;
+        this.frameDurations = frameDurations;
         this.refreshRate = refreshRate;
         this.permission = permission;
     }
@@ -49,6 +57,45 @@ public class Sticker {
 
     public void setFrames(List<Component> frames) {
         this.frames = frames;
+        this.timeline = null;
+    }
+
+    public List<Integer> getFrameDurations() {
+        return frameDurations;
+    }
+
+    public void setFrameDurations(List<Integer> frameDurations) {
+        this.frameDurations = frameDurations;
+        this.timeline = null;
+    }
+
+    /**
+     * Get the compiled playback timeline of this sticker, building it on first use if the
+     * sticker was never {@link #prepare() prepared}.
+     *
+     * @return The {@link StickerTimeline} for the current frames and durations.
+     */
+    public StickerTimeline getTimeline() {
+        StickerTimeline timeline = this.timeline;
+        if (timeline == null) {
+            timeline = StickerTimeline.of(frames, frameDurations, refreshRate);
+            this.timeline = timeline;
+        }
+
+        return timeline;
+    }
+
+    /**
+     * Compile the timeline and swap duplicate frames for its shared instances, so repeated
+     * frames used to fake holds only occupy memory once. Called on the loading thread before
+     * the sticker is published in a catalog; a sticker that is already compiled is left as is.
+     */
+    void prepare() {
+        if (timeline != null) return;
+
+        StickerTimeline timeline = StickerTimeline.of(frames, frameDurations, refreshRate);
+        this.frames = timeline.getSourceFrames();
+        this.timeline = timeline;
     }
 
     public int getRefreshRate() {
@@ -57,6 +104,7 @@ public class Sticker {
 
     public void setRefreshRate(int refreshRate) {
         this.refreshRate = refreshRate;
+        this.timeline = null;
     }
 
     public String getPermission() {
@@ -0,0 +1,172 @@
+package com.berttowne.stickers.stickers;
+
+import com.berttowne.stickers.util.ComponentCache;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dev.triumphteam.gui.guis.Gui;
+import dev.triumphteam.gui.guis.GuiItem;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Paginated inventory browser for the sticker catalog.
+ * <p>
+ * The {@link GuiItem} of every sticker is built on first display and then shared by every
+ * viewer until the catalog changes, and only the visible page is ever placed in a viewer's
+ * inventory, so opening and paging cost the page size regardless of the catalog size.
+ */
+@Singleton
+public class StickerBrowser {
+
+    private static final int ROWS = 6;
+    private static final int PAGE_SIZE = (ROWS - 1) * 9;
+    private static final int PREVIOUS_SLOT = PAGE_SIZE;
+    private static final int NEXT_SLOT = PAGE_SIZE + 8;
+
+    private static final Component TITLE = Component.text("Available Stickers");
+    private static final Component CLICK_HINT = ComponentCache.deserialize("<white>Click<gray> to place this sticker at target location")
+            .decoration(TextDecoration.ITALIC, false);
+
+    @Inject private StickerService stickerService;
+    @Inject private StickerMenu stickerMenu;
+
+    private volatile Items items = new Items(StickerCatalog.EMPTY);
+
+    /**
+     * Open the browser for a player.
+     *
+     * @param player The player to open the browser for.
+     * @param page   The one-based page to open at, clamped to the available pages.
+     */
+    public void open(@NotNull Player player, int page) {
+        StickerCatalog catalog = stickerService.getCatalog();
+        int[] visible = stickerMenu.visible(catalog, stickerService.getStickerPermissions().getKey(player, catalog));
+
+        Gui gui = Gui.gui()
+                .title(TITLE)
+                .rows(ROWS)
+                .disableAllInteractions()
+                .create();
+
+        new Viewer(gui, catalog, items(catalog), visible).render(page - 1);
+        gui.open(player);
+    }
+
+    private @NotNull Items items(@NotNull StickerCatalog catalog) {
+        Items items = this.items;
+        if (items.catalog() != catalog) {
+            items = new Items(catalog);
+            this.items = items;
+        }
+
+        return items;
+    }
+
+    private @NotNull GuiItem buildItem(@NotNull Sticker sticker) {
+        ItemStack stack = new ItemStack(Material.PAPER);
+        stack.editMeta(meta -> {
+            meta.displayName(sticker.getFrame(0)
+                    .append(Component.text(" " + sticker.getName(), NamedTextColor.YELLOW))
+                    .decoration(TextDecoration.ITALIC, false));
+
+            List<Component> lore = Lists.newArrayListWithCapacity(sticker.getDescription().size() + 2);
+            sticker.getDescription().forEach(line -> lore.add(line.decoration(TextDecoration.ITALIC, false)));
+            lore.add(Component.empty());
+            lore.add(CLICK_HINT);
+            meta.lore(lore);
+        });
+
+        return new GuiItem(stack, event -> {
+            if (!(event.getWhoClicked() instanceof Player player)) return;
+
+            player.closeInventory();
+            stickerService.placeSticker(player, sticker);
+        });
+    }
+
+    private static @NotNull GuiItem navigation(String label, int targetPage, Runnable action) {
+        ItemStack stack = new ItemStack(Material.ARROW);
+        stack.editMeta(meta -> {
+            meta.displayName(Component.text(label, NamedTextColor.YELLOW).decoration(TextDecoration.ITALIC, false));
+            meta.lore(List.of(Component.text("Go to page " + targetPage, NamedTextColor.GRAY).decoration(TextDecoration.ITALIC, false)));
+        });
+
+        return new GuiItem(stack, event -> action.run());
+    }
+
+    /**
+     * Sticker items of one catalog version, built lazily so only stickers that are actually
+     * displayed ever get an {@link ItemStack}.
+     */
+    private record Items(StickerCatalog catalog, AtomicReferenceArray<GuiItem> items) {
+        private Items(StickerCatalog catalog) {
+            this(catalog, new AtomicReferenceArray<>(catalog.size()));
+        }
+    }
+
+    private final class Viewer {
+
+        private final Gui gui;
+        private final StickerCatalog catalog;
+        private final Items items;
+        private final int[] visible;
+        private final int pageCount;
+
+        private Viewer(Gui gui, StickerCatalog catalog, Items items, int[] visible) {
+            this.gui = gui;
+            this.catalog = catalog;
+            this.items = items;
+            this.visible = visible;
+            this.pageCount = Math.max(1, (visible.length + PAGE_SIZE - 1) / PAGE_SIZE);
+        }
+
+        private void render(int page) {
+            page = Math.clamp(page, 0, pageCount - 1);
+
+            int offset = page * PAGE_SIZE;
+            for (int slot = 0; slot < PAGE_SIZE; slot++) {
+                if (offset + slot < visible.length) {
+                    gui.setItem(slot, item(visible[offset + slot]));
+                } else {
+                    gui.removeItem(slot);
+                }
+            }
+
+            int current = page;
+            if (page > 0) {
+                gui.setItem(PREVIOUS_SLOT, navigation("« Previous", page, () -> render(current - 1)));
+            } else {
+                gui.removeItem(PREVIOUS_SLOT);
+            }
+
+            if (page + 1 < pageCount) {
+                gui.setItem(NEXT_SLOT, navigation("Next »", page + 2, () -> render(current + 1)));
+            } else {
+                gui.removeItem(NEXT_SLOT);
+            }
+
+            gui.update();
+        }
+
+        private GuiItem item(int index) {
+            GuiItem item = items.items().get(index);
+            if (item == null) {
+                item = buildItem(catalog.get(index));
+                if (!items.items().compareAndSet(index, null, item)) item = items.items().get(index);
+            }
+
+            return item;
+        }
+
+    }
+
+}
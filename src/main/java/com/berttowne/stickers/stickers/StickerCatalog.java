@@ -0,0 +1,144 @@
+package com.berttowne.stickers.stickers;
+
+import com.google.common.collect.Maps;
+import org.bukkit.permissions.Permissible;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable snapshot of the loaded stickers.
+ * <p>
+ * Every snapshot gets a unique, increasing version so caches derived from the catalog
+ * (menus, indexes, item stacks) can tell when they are stale. Stickers are partitioned by
+ * permission node: a player's access to the whole catalog is described by a {@link BitSet}
+ * over the distinct nodes, which costs one permission check per node instead of one per sticker.
+ */
+public final class StickerCatalog {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    public static final StickerCatalog EMPTY = new StickerCatalog(List.of());
+
+    private final long version;
+    private final List<Sticker> stickers;
+    private final Map<String, Sticker> byName;
+    private final Map<Sticker, Integer> indexes;
+    private final String[] permissions;  // permission node id -> node
+    private final int[] permissionIds;   // sticker index -> permission node id
+
+    private volatile StickerNameIndex nameIndex;
+
+    public StickerCatalog(@NotNull Collection<Sticker> stickers) {
+        this.version = VERSIONS.incrementAndGet();
+        this.stickers = List.copyOf(stickers);
+        this.byName = Maps.newHashMapWithExpectedSize(this.stickers.size());
+        this.indexes = Maps.newIdentityHashMap();
+        this.permissionIds = new int[this.stickers.size()];
+
+        Map<String, Integer> nodes = Maps.newLinkedHashMap();
+        for (int i = 0; i < this.stickers.size(); i++) {
+            Sticker sticker = this.stickers.get(i);
+
+            byName.putIfAbsent(sticker.getName().toLowerCase(Locale.ROOT), sticker);
+            indexes.putIfAbsent(sticker, i);
+            permissionIds[i] = nodes.computeIfAbsent(sticker.getPermission(), node -> nodes.size());
+        }
+
+        this.permissions = nodes.keySet().toArray(String[]::new);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Sticker> getStickers() {
+        return stickers;
+    }
+
+    public boolean isEmpty() {
+        return stickers.isEmpty();
+    }
+
+    public int size() {
+        return stickers.size();
+    }
+
+    public Sticker get(int index) {
+        return stickers.get(index);
+    }
+
+    /**
+     * @param sticker The sticker to look up.
+     * @return The index of the sticker instance in this catalog, or {@code -1} if it is not part of it.
+     */
+    public int indexOf(@NotNull Sticker sticker) {
+        return indexes.getOrDefault(sticker, -1);
+    }
+
+    public @Nullable Sticker getSticker(@NotNull String name) {
+        return byName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return The name completion index of this catalog, built on first use.
+     */
+    public @NotNull StickerNameIndex getNameIndex() {
+        StickerNameIndex nameIndex = this.nameIndex;
+        if (nameIndex == null) {
+            nameIndex = new StickerNameIndex(this);
+            this.nameIndex = nameIndex;
+        }
+
+        return nameIndex;
+    }
+
+    /**
+     * @return The number of distinct permission nodes used by the stickers in this catalog.
+     */
+    public int getPermissionCount() {
+        return permissions.length;
+    }
+
+    public String getPermission(int permissionId) {
+        return permissions[permissionId];
+    }
+
+    public int getPermissionId(int index) {
+        return permissionIds[index];
+    }
+
+    /**
+     * Compute which permission nodes of this catalog the given {@link Permissible} holds.
+     * <p>
+     * The returned set is freshly allocated and safe to use as a map key, provided it is not
+     * mutated afterwards.
+     *
+     * @param permissible The player (or other permissible) to check.
+     * @return A {@link BitSet} indexed by permission node id.
+     */
+    public @NotNull BitSet permissionKey(@NotNull Permissible permissible) {
+        BitSet key = new BitSet(permissions.length);
+        for (int i = 0; i < permissions.length; i++) {
+            if (permissible.hasPermission(permissions[i])) key.set(i);
+        }
+
+        return key;
+    }
+
+    /**
+     * @param permissionKey A key returned by {@link #permissionKey(Permissible)} for this catalog.
+     * @param index         The index of the sticker in this catalog.
+     * @return {@code true} if the holder of the key may use the sticker.
+     */
+    public boolean canUse(@NotNull BitSet permissionKey, int index) {
+        return permissionKey.get(permissionIds[index]);
+    }
+
+}
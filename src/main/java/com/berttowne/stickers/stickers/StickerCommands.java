@@ -1,51 +1,75 @@
 package com.berttowne.stickers.stickers;
 
 import com.berttowne.stickers.StickersPlugin;
+import com.berttowne.stickers.util.Scheduler;
+import com.berttowne.stickers.util.config.ConfigService;
+import com.berttowne.stickers.util.messages.Message;
+import com.berttowne.stickers.util.messages.Messages;
+import com.berttowne.stickers.util.metrics.MetricsService;
+import com.berttowne.stickers.util.resourcepack.ResourcePackService;
+import com.berttowne.stickers.util.resourcepack.ResourcePackSet;
 import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.tree.LiteralCommandNode;
-import dev.triumphteam.gui.guis.Gui;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
-import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.entity.Player;
 
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
 public class StickerCommands {
 
+    private static final int MAX_SUGGESTIONS = 100;
+    private static final String AUTO_VARIANT = "auto";
+    private static final int MAX_TIMINGS = 10;
+
     public static final LiteralCommandNode<CommandSourceStack> STICKERS_COMMAND = Commands.literal("stickers")
             .requires(sender -> sender.getExecutor() instanceof Player)
-            .executes(ctx -> {
-                // Show help message
-                CommandSourceStack source = ctx.getSource();
-                Player player = (Player) source.getExecutor();
-                StickerService stickerService = StickersPlugin.getPlugin(StickersPlugin.class).getInjector().getInstance(StickerService.class);
-
-                player.sendMessage(stickerService.showStickersChat(player));
-
-                // TODO: Merge resource pack font into default mc font
-                /*Component stickers = stickerService.showStickers(player);
-                Component title = Component.text()
-                        .append(StickerService.BLANK_INVENTORY)
-                        .append(stickers)
-                        .append(Component.text("Available Stickers:").color(NamedTextColor.GRAY)).build();
+            .then(Commands.literal("browse")
+                    .then(Commands.argument("page", IntegerArgumentType.integer(1))
+                            .executes(ctx -> browseStickers(ctx.getSource(), IntegerArgumentType.getInteger(ctx, "page"))))
+                    .executes(ctx -> browseStickers(ctx.getSource(), 1)))
+            .then(Commands.literal("pack")
+                    .then(Commands.argument("variant", StringArgumentType.word())
+                            .suggests((ctx, builder) -> {
+                                ResourcePackSet packs = StickersPlugin.getPlugin(StickersPlugin.class).getInjector().getInstance(ResourcePackService.class).getPacks();
+                                if (packs != null) packs.getVariantNames().forEach(builder::suggest);
+                                builder.suggest(AUTO_VARIANT);
 
-                player.sendMessage("\n\n\n");
-                player.sendMessage(title);
-
-                Gui stickerGui = Gui.gui()
-                        .title(title)
-                        .rows(6)
-                        .create();
-
-                stickerGui.open(player);*/
-
-                return Command.SINGLE_SUCCESS;
-            })
+                                return builder.buildFuture();
+                            })
+                            .executes(ctx -> choosePackVariant(ctx.getSource(), StringArgumentType.getString(ctx, "variant")))))
+            .then(Commands.literal("reload-config")
+                    .requires(source -> source.getSender().hasPermission("stickers.admin"))
+                    .executes(ctx -> reloadConfig(ctx.getSource())))
+            .then(Commands.literal("stats")
+                    .requires(source -> source.getSender().hasPermission("stickers.stats"))
+                    .executes(ctx -> showStats(ctx.getSource())))
+            .then(Commands.literal("timings")
+                    .requires(source -> source.getSender().hasPermission("stickers.stats"))
+                    .executes(ctx -> showTimings(ctx.getSource())))
+            .then(Commands.argument("page", IntegerArgumentType.integer(1))
+                    .executes(ctx -> showStickers(ctx.getSource(), IntegerArgumentType.getInteger(ctx, "page"))))
+            .executes(ctx -> showStickers(ctx.getSource(), 1))
             .build();
 
     public static final LiteralCommandNode<CommandSourceStack> PLACE_STICKER_COMMAND = Commands.literal("placesticker")
             .then(Commands.argument("name", StringArgumentType.greedyString())
+                    .suggests((ctx, builder) -> {
+                        StickerService stickerService = StickersPlugin.getPlugin(StickersPlugin.class).getInjector().getInstance(StickerService.class);
+                        StickerCatalog catalog = stickerService.getCatalog();
+                        CommandSourceStack source = ctx.getSource();
+                        BitSet permissionKey = source.getExecutor() instanceof Player player
+                                ? stickerService.getStickerPermissions().getKey(player, catalog)
+                                : catalog.permissionKey(source.getSender());
+
+                        catalog.getNameIndex().complete(permissionKey, builder.getRemaining(), MAX_SUGGESTIONS, builder::suggest);
+
+                        return builder.buildFuture();
+                    })
                     .executes(ctx -> {
                         StickerService stickerService = StickersPlugin.getPlugin(StickersPlugin.class).getInjector().getInstance(StickerService.class);
                         Sticker sticker = stickerService.getSticker(StringArgumentType.getString(ctx, "name"));
@@ -53,7 +77,7 @@ public class StickerCommands {
                         Player player = (Player) source.getExecutor();
 
                         if (sticker == null) {
-                            player.sendRichMessage("<red>Sticker not found!");
+                            player.sendMessage(messages().get(Message.STICKER_NOT_FOUND));
                             return Command.SINGLE_SUCCESS;
                         }
 
@@ -63,4 +87,79 @@ public class StickerCommands {
                     }))
             .build();
 
-}
\ No newline at end of file
+    private static int showStickers(CommandSourceStack source, int page) {
+        Player player = (Player) source.getExecutor();
+        StickerService stickerService = StickersPlugin.getPlugin(StickersPlugin.class).getInjector().getInstance(StickerService.class);
+
+        player.sendMessage(stickerService.showStickersChat(player, page));
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static int browseStickers(CommandSourceStack source, int page) {
+        Player player = (Player) source.getExecutor();
+        StickerBrowser stickerBrowser = StickersPlugin.getPlugin(StickersPlugin.class).getInjector().getInstance(StickerBrowser.class);
+
+        stickerBrowser.open(player, page);
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static int choosePackVariant(CommandSourceStack source, String variant) {
+        Player player = (Player) source.getExecutor();
+        ResourcePackService resourcePackService = StickersPlugin.getPlugin(StickersPlugin.class).getInjector().getInstance(ResourcePackService.class);
+
+        if (variant.equals(AUTO_VARIANT)) {
+            resourcePackService.setPreferredVariant(player, null);
+            player.sendMessage(messages().get(Message.PACK_AUTO));
+        } else if (resourcePackService.setPreferredVariant(player, variant)) {
+            player.sendMessage(messages().get(Message.PACK_SWITCHED, variant));
+        } else {
+            player.sendMessage(messages().get(Message.PACK_NOT_FOUND));
+        }
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static int showStats(CommandSourceStack source) {
+        MetricsService metricsService = StickersPlugin.getPlugin(StickersPlugin.class).getInjector().getInstance(MetricsService.class);
+
+        source.getSender().sendMessage(messages().get(Message.STATS_HEADER));
+        metricsService.getSummary().forEach(source.getSender()::sendRichMessage);
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static int showTimings(CommandSourceStack source) {
+        MetricsService metricsService = StickersPlugin.getPlugin(StickersPlugin.class).getInjector().getInstance(MetricsService.class);
+        List<String> timings = metricsService.getTimings(MAX_TIMINGS);
+
+        source.getSender().sendMessage(messages().get(timings.isEmpty() ? Message.TIMINGS_EMPTY : Message.TIMINGS_HEADER));
+        timings.forEach(source.getSender()::sendRichMessage);
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static int reloadConfig(CommandSourceStack source) {
+        ConfigService configService = StickersPlugin.getPlugin(StickersPlugin.class).getInjector().getInstance(ConfigService.class);
+
+        // Read and validated on an I/O thread, the reply is sent from the player's thread once it is applied
+        configService.reload().whenCompleteAsync((changed, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                source.getSender().sendMessage(messages().get(Message.CONFIG_INVALID, String.valueOf(cause.getMessage())));
+            } else if (changed.isEmpty()) {
+                source.getSender().sendMessage(messages().get(Message.CONFIG_UNCHANGED));
+            } else {
+                source.getSender().sendMessage(messages().get(Message.CONFIG_RELOADED, String.join(", ", changed)));
+            }
+        }, Scheduler.executor(source.getExecutor()));
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static Messages messages() {
+        return StickersPlugin.getPlugin(StickersPlugin.class).getInjector().getInstance(Messages.class);
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.berttowne.stickers.stickers;
+
+import com.google.inject.ImplementedBy;
+import org.bukkit.Location;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Creates the holograms placed stickers are shown with. {@link FancyStickerHolograms} backs
+ * them with FancyHolograms on a server; the load tests use an in-memory implementation.
+ */
+@ImplementedBy(FancyStickerHolograms.class)
+public interface StickerHolograms {
+
+    /**
+     * Create and show a hologram.
+     *
+     * @param name     The hologram name.
+     * @param location Where to show the hologram.
+     * @param lines    The MiniMessage text lines.
+     * @return The hologram.
+     */
+    @NotNull StickerHologram create(@NotNull String name, @NotNull Location location, @NotNull List<String> lines);
+
+    /**
+     * @return The number of holograms currently shown.
+     */
+    int getHologramCount();
+
+    interface StickerHologram {
+
+        /**
+         * Move the hologram. Takes effect on the next {@link #update()}.
+         *
+         * @param location The new location, including the rotation.
+         */
+        void setLocation(@NotNull Location location);
+
+        /**
+         * Replace a text line. Takes effect on the next {@link #update()}.
+         *
+         * @param index The line index.
+         * @param line  The MiniMessage text.
+         */
+        void setLine(int index, @NotNull String line);
+
+        /**
+         * Send the pending changes to the viewers.
+         */
+        void update();
+
+        /**
+         * @return The number of players the hologram is currently shown to.
+         */
+        int getViewerCount();
+
+        /**
+         * Remove the hologram.
+         */
+        void remove();
+
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.berttowne.stickers.stickers;
+
+import com.berttowne.stickers.util.ComponentCache;
+import com.google.inject.Singleton;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Builds and caches the paginated chat sticker menu.
+ * <p>
+ * The hover and click components of every sticker are prebuilt once per catalog version.
+ * For every permission key the list of visible stickers is computed once, and pages are
+ * rendered on demand and cached, so players sharing the same sticker permissions share the
+ * same page components and reopening a page is a map lookup. Building a page only touches
+ * the stickers on that page, which also keeps each chat packet bounded by {@link #PAGE_SIZE}.
+ */
+@Singleton
+public class StickerMenu {
+
+    public static final int PAGE_SIZE = 36;
+
+    private static final Component HEADER = Component.text("Available Stickers:\n");
+    private static final Component CLICK_HINT = ComponentCache.deserialize("\n\n<white>Click<gray> to place this sticker at target location");
+    private static final Component PREVIOUS_DISABLED = Component.text("« Previous", NamedTextColor.DARK_GRAY);
+    private static final Component NEXT_DISABLED = Component.text("Next »", NamedTextColor.DARK_GRAY);
+
+    /**
+     * Permission keys are bounded by the number of permission nodes in the catalog, but a bad
+     * setup could still produce many combinations, so the cache is simply dropped past this size.
+     */
+    private static final int MAX_CACHED_VIEWS = 256;
+
+    private volatile Cache cache = new Cache(StickerCatalog.EMPTY, new Component[0]);
+
+    /**
+     * Prebuild the menu entries for a newly published catalog, dropping every page cached for
+     * the previous one. An older catalog, such as one a menu opened before a reload still holds,
+     * leaves the cache alone.
+     *
+     * @param catalog The new catalog.
+     */
+    public void prepare(@NotNull StickerCatalog catalog) {
+        if (catalog.getVersion() <= cache.catalog().getVersion()) return;
+
+        Component[] entries = new Component[catalog.size()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = buildEntry(catalog.get(i));
+        }
+
+        this.cache = new Cache(catalog, entries);
+    }
+
+    /**
+     * Get the stickers visible with a permission key, computing them on first use.
+     *
+     * @param catalog       The catalog the key was computed against.
+     * @param permissionKey The key returned by {@link StickerCatalog#permissionKey}, which must not be mutated afterwards.
+     * @return The indexes in the catalog of the usable stickers, in catalog order. Must not be modified.
+     */
+    public int @NotNull [] visible(@NotNull StickerCatalog catalog, @NotNull BitSet permissionKey) {
+        return view(catalog, permissionKey).visible();
+    }
+
+    /**
+     * Get the number of menu pages for a permission key.
+     *
+     * @param catalog       The catalog the key was computed against.
+     * @param permissionKey The key returned by {@link StickerCatalog#permissionKey}, which must not be mutated afterwards.
+     * @return The number of pages, always at least one.
+     */
+    public int pageCount(@NotNull StickerCatalog catalog, @NotNull BitSet permissionKey) {
+        return view(catalog, permissionKey).pageCount();
+    }
+
+    /**
+     * Get a page of the chat menu for a permission key, rendering it on first use.
+     *
+     * @param catalog       The catalog the key was computed against.
+     * @param permissionKey The key returned by {@link StickerCatalog#permissionKey}, which must not be mutated afterwards.
+     * @param page          The one-based page number, clamped to the available pages.
+     * @return The page component.
+     */
+    public @NotNull Component render(@NotNull StickerCatalog catalog, @NotNull BitSet permissionKey, int page) {
+        View view = view(catalog, permissionKey);
+        int index = Math.clamp(page - 1, 0, view.pageCount() - 1);
+
+        Component rendered = view.pages().get(index);
+        if (rendered == null) {
+            rendered = buildPage(catalog, view, index);
+            view.pages().compareAndSet(index, null, rendered);
+        }
+
+        return rendered;
+    }
+
+    private @NotNull View view(@NotNull StickerCatalog catalog, @NotNull BitSet permissionKey) {
+        prepare(catalog);
+
+        Cache cache = this.cache;
+        if (cache.catalog() != catalog) return View.of(catalog, null, permissionKey); // Raced with a reload
+
+        View view = cache.views().get(permissionKey);
+        if (view != null) return view;
+
+        if (cache.views().size() >= MAX_CACHED_VIEWS) cache.views().clear();
+        return cache.views().computeIfAbsent(permissionKey, key -> View.of(catalog, cache.entries(), key));
+    }
+
+    private static @NotNull Component buildPage(StickerCatalog catalog, View view, int page) {
+        TextComponent.Builder builder = Component.text().append(HEADER);
+
+        int[] visible = view.visible();
+        int end = Math.min(visible.length, (page + 1) * PAGE_SIZE);
+        for (int i = page * PAGE_SIZE; i < end; i++) {
+            int index = visible[i];
+            builder.append(view.entries() != null ? view.entries()[index] : buildEntry(catalog.get(index)));
+        }
+
+        if (view.pageCount() > 1) {
+            builder.append(Component.newline()).append(Component.newline())
+                    .append(page > 0 ? navigation("« Previous", page) : PREVIOUS_DISABLED)
+                    .append(Component.text("  Page " + (page + 1) + "/" + view.pageCount() + "  ", NamedTextColor.GRAY))
+                    .append(page + 1 < view.pageCount() ? navigation("Next »", page + 2) : NEXT_DISABLED);
+        }
+
+        return builder.build();
+    }
+
+    private static @NotNull Component navigation(String label, int targetPage) {
+        return Component.text(label, NamedTextColor.YELLOW)
+                .hoverEvent(Component.text("Go to page " + targetPage, NamedTextColor.GRAY))
+                .clickEvent(ClickEvent.runCommand("/stickers " + targetPage));
+    }
+
+    private static @NotNull Component buildEntry(@NotNull Sticker sticker) {
+        return sticker.getFrame(0).hoverEvent(
+                Component.text()
+                        .append(Component.text(sticker.getName() + "\n").color(NamedTextColor.YELLOW))
+                        .append(sticker.getDescription())
+                        .append(CLICK_HINT)
+                        .build()
+        ).clickEvent(ClickEvent.runCommand("/placesticker " + sticker.getName()));
+    }
+
+    private record Cache(StickerCatalog catalog, Component[] entries, Map<BitSet, View> views) {
+        private Cache(StickerCatalog catalog, Component[] entries) {
+            this(catalog, entries, new ConcurrentHashMap<>());
+        }
+    }
+
+    private record View(int[] visible, Component @Nullable [] entries, AtomicReferenceArray<Component> pages) {
+        private static View of(StickerCatalog catalog, Component @Nullable [] entries, BitSet permissionKey) {
+            int[] visible = new int[catalog.size()];
+            int count = 0;
+            for (int i = 0; i < catalog.size(); i++) {
+                if (catalog.canUse(permissionKey, i)) visible[count++] = i;
+            }
+
+            int pageCount = Math.max(1, (count + PAGE_SIZE - 1) / PAGE_SIZE);
+            return new View(Arrays.copyOf(visible, count), entries, new AtomicReferenceArray<>(pageCount));
+        }
+
+        private int pageCount() {
+            return pages.length();
+        }
+    }
+
+}
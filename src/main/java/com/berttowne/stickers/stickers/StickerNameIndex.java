@@ -0,0 +1,73 @@
+package com.berttowne.stickers.stickers;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Sorted, permission-partitioned index of sticker names used for command completion.
+ * <p>
+ * Names are grouped by the permission node of their sticker and sorted within each group,
+ * so prefix matches for a player are found with one binary search per permission node they
+ * hold, without visiting the rest of the catalog or checking permissions per sticker.
+ */
+public final class StickerNameIndex {
+
+    private final String[][] keys;  // permission node id -> sorted lower case names
+    private final String[][] names; // permission node id -> names aligned with keys
+
+    StickerNameIndex(@NotNull StickerCatalog catalog) {
+        List<List<String>> partitions = Lists.newArrayListWithCapacity(catalog.getPermissionCount());
+        for (int i = 0; i < catalog.getPermissionCount(); i++) {
+            partitions.add(Lists.newArrayList());
+        }
+
+        for (int i = 0; i < catalog.size(); i++) {
+            partitions.get(catalog.getPermissionId(i)).add(catalog.get(i).getName());
+        }
+
+        this.keys = new String[partitions.size()][];
+        this.names = new String[partitions.size()][];
+        for (int node = 0; node < partitions.size(); node++) {
+            String[] sorted = partitions.get(node).stream()
+                    .sorted(Comparator.comparing(name -> name.toLowerCase(Locale.ROOT)))
+                    .toArray(String[]::new);
+
+            names[node] = sorted;
+            keys[node] = Arrays.stream(sorted).map(name -> name.toLowerCase(Locale.ROOT)).toArray(String[]::new);
+        }
+    }
+
+    /**
+     * Find the names starting with the given prefix, ignoring case, among the permission
+     * nodes set in the key.
+     *
+     * @param permissionKey A key returned by {@link StickerCatalog#permissionKey} for the catalog of this index.
+     * @param prefix        The prefix typed so far.
+     * @param limit         The maximum number of names to report.
+     * @param consumer      Receives every matching name.
+     */
+    public void complete(@NotNull BitSet permissionKey, @NotNull String prefix, int limit, @NotNull Consumer<String> consumer) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int remaining = limit;
+
+        for (int node = permissionKey.nextSetBit(0); node >= 0 && node < keys.length && remaining > 0; node = permissionKey.nextSetBit(node + 1)) {
+            String[] partition = keys[node];
+
+            int start = Arrays.binarySearch(partition, key);
+            if (start < 0) start = -start - 1;
+
+            for (int i = start; i < partition.length && remaining > 0 && partition[i].startsWith(key); i++) {
+                consumer.accept(names[node][i]);
+                remaining--;
+            }
+        }
+    }
+
+}
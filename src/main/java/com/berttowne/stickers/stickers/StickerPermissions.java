@@ -0,0 +1,97 @@
+package com.berttowne.stickers.stickers;
+
+import com.google.auto.service.AutoService;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerCommandSendEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-player cache of the sticker permission keys computed by {@link StickerCatalog#permissionKey}.
+ * <p>
+ * A key is computed when a player joins and whenever their permissions are likely to have
+ * been recalculated, and is otherwise reused until the catalog version changes, so menus,
+ * completion and placement check access to a sticker with a single bit lookup.
+ * <p>
+ * Bukkit has no permission recalculation event, so the command tree resend
+ * ({@link PlayerCommandSendEvent}) is used instead: the server resends commands when a
+ * player's operator status changes, and permission plugins do the same after recalculating
+ * a player so that their command list stays accurate.
+ */
+@Singleton
+@AutoService(Listener.class)
+public class StickerPermissions implements Listener {
+
+    @Inject private Provider<StickerService> stickerService;
+
+    private final Map<UUID, Entry> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Get the cached permission key of a player for the given catalog, computing it if the
+     * cached one is missing or belongs to another catalog version.
+     *
+     * @param player  The player.
+     * @param catalog The catalog the key is needed for.
+     * @return The permission key, which must not be mutated.
+     */
+    public @NotNull BitSet getKey(@NotNull Player player, @NotNull StickerCatalog catalog) {
+        Entry entry = keys.get(player.getUniqueId());
+        if (entry != null && entry.version() == catalog.getVersion()) return entry.key();
+
+        return recalculate(player, catalog);
+    }
+
+    /**
+     * @param player  The player.
+     * @param catalog The catalog the sticker belongs to.
+     * @param index   The index of the sticker in the catalog.
+     * @return {@code true} if the player may use the sticker.
+     */
+    public boolean canUse(@NotNull Player player, @NotNull StickerCatalog catalog, int index) {
+        return catalog.canUse(getKey(player, catalog), index);
+    }
+
+    private @NotNull BitSet recalculate(@NotNull Player player, @NotNull StickerCatalog catalog) {
+        BitSet key = catalog.permissionKey(player);
+        keys.put(player.getUniqueId(), new Entry(catalog.getVersion(), key));
+
+        return key;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        recalculate(event.getPlayer(), stickerService.get().getCatalog());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerCommandSend(PlayerCommandSendEvent event) {
+        recalculate(event.getPlayer(), stickerService.get().getCatalog());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        // Permission plugins commonly support per-world permissions
+        recalculate(event.getPlayer(), stickerService.get().getCatalog());
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        keys.remove(event.getPlayer().getUniqueId());
+    }
+
+    private record Entry(long version, BitSet key) { }
+
+}
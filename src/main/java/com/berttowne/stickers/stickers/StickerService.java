@@ -1,9 +1,18 @@
 package com.berttowne.stickers.stickers;
 
-import com.berttowne.stickers.StickersPlugin;
+import com.berttowne.stickers.util.ComponentCache;
 import com.berttowne.stickers.util.Scheduler;
 import com.berttowne.stickers.util.TimeFormatter;
+import com.berttowne.stickers.util.config.ConfigService;
+import com.berttowne.stickers.util.injection.DependsOn;
 import com.berttowne.stickers.util.injection.Service;
+import com.berttowne.stickers.util.messages.Message;
+import com.berttowne.stickers.util.messages.MessageTemplate;
+import com.berttowne.stickers.util.messages.Messages;
+import com.berttowne.stickers.util.metrics.Metrics;
+import com.berttowne.stickers.util.metrics.StartupProfiler;
+import com.berttowne.stickers.util.metrics.StickerEvents;
+import com.berttowne.stickers.util.resourcepack.ResourcePackBuilder;
 import com.google.auto.service.AutoService;
 import com.google.common.collect.Lists;
 import com.google.gson.Gson;
@@ -12,9 +21,7 @@ import com.google.inject.Singleton;
 import net.kyori.adventure.key.Key;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
-import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.format.NamedTextColor;
-import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.Effect;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
@@ -26,15 +33,22 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.time.Clock;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @Singleton
 @AutoService({Service.class, Listener.class})
+@DependsOn(ConfigService.class)
 public class StickerService implements Service, Listener {
 
     // CUSTOM CHARS
@@ -44,41 +58,71 @@ public class StickerService implements Service, Listener {
     public static final Component STICKER_SMILE_2 = Component.text('\uEff3').font(Key.key("minecraft", "default")).color(NamedTextColor.WHITE);
     public static final Component STICKER_SMILE_3 = Component.text('\uEff4').font(Key.key("minecraft", "default")).color(NamedTextColor.WHITE);
 
+    /**
+     * Cooldown action bars are cached for cooldowns of up to ten minutes.
+     */
+    private static final int MAX_CACHED_COOLDOWN_SECONDS = 601;
+
+    private static final Metrics.Counter PLACED = Metrics.counter("stickers_placed_total", "Stickers placed");
+    private static final Metrics.Counter REJECTED = Metrics.counter("stickers_place_rejected_total", "Placements refused (permission, target or cooldown)");
+    private static final Metrics.Counter EXPIRED = Metrics.counter("stickers_expired_total", "Placed stickers removed after their cooldown");
+    private static final Metrics.Histogram PLACE_LATENCY = Metrics.histogram("stickers_place_seconds", "Time spent handling a placement");
+    private static final Metrics.Histogram CATALOG_LOAD = Metrics.histogram("stickers_catalog_load_seconds", "Time spent loading stickers.json");
+    private static final Metrics.Histogram CATALOG_SAVE = Metrics.histogram("stickers_catalog_save_seconds", "Time spent saving stickers.json");
+
     @Inject private Gson gson;
-    @Inject private StickersPlugin plugin;
+    @Inject private Plugin plugin;
+    @Inject private StickerMenu stickerMenu;
+    @Inject private StickerPermissions stickerPermissions;
+    @Inject private ResourcePackBuilder resourcePackBuilder;
+    @Inject private StickerHolograms holograms;
+    @Inject private Messages messages;
+    @Inject private ConfigService config;
+    @Inject private Clock clock;
+
+    private final List<PlacedSticker> placedStickers = Lists.newCopyOnWriteArrayList();
+
+    private volatile CooldownMessages cooldownMessages = new CooldownMessages(null, new AtomicReferenceArray<>(0));
 
-    private final List<Sticker> stickers = Lists.newArrayList();
-    private final List<PlacedSticker> placedStickers = Lists.newArrayList();
+    private volatile StickerCatalog catalog = StickerCatalog.EMPTY;
 
     private File stickersFile;
-    private long stickerCooldown;
+    private NamespacedKey lastPlacedKey;
 
     @Override
-    public void onEnable() {
+    public void onLoad() {
         this.stickersFile = new File(plugin.getDataFolder(), "stickers.json");
-        this.stickerCooldown = plugin.getConfig().getLong("sticker-cooldown", 30000);
+        this.lastPlacedKey = new NamespacedKey(plugin, "last_placed");
 
         loadStickers();
 
         // TODO: Sticker GUI and resource pack
         // TODO: Remove after testing
-        stickers.add(new Sticker(
+        addSticker(new Sticker(
                 "Emojis",
-                List.of(MiniMessage.miniMessage().deserialize("<gray>Source: https://github.com/iamBijoyKar/emojis-pixel-art/tree/master")),
+                List.of(ComponentCache.deserialize("<gray>Source: https://github.com/iamBijoyKar/emojis-pixel-art/tree/master")),
                 List.of(STICKER_SMILE_1, STICKER_SMILE_2, STICKER_SMILE_3),
                 20,
                 "stickers.use.test"
         ));
 
-        stickers.add(new Sticker(
+        addSticker(new Sticker(
                 "Legundo",
-                List.of(MiniMessage.miniMessage().deserialize("<gray>Sticker used for testing.")),
+                List.of(ComponentCache.deserialize("<gray>Sticker used for testing.")),
                 List.of(STICKER_LEGUNDO),
                 0,
                 "stickers.use.legundo"
         ));
     }
 
+    @Override
+    public void onEnable() {
+        Metrics.gauge("stickers_live", "Placed stickers currently shown", placedStickers::size);
+
+        // The pack is built while the resource pack service loads, which may run alongside onLoad
+        addGeneratedStickers(resourcePackBuilder.getGeneratedStickers());
+    }
+
     @Override
     public void onDisable() {
         saveStickers();
@@ -99,126 +143,289 @@ public class StickerService implements Service, Listener {
     }
 
     public void loadStickers() {
+        long start = System.nanoTime();
         if (!stickersFile.exists()) {
             plugin.getLogger().warning("Stickers file not found! Creating default stickers.json...");
             saveStickers();
             return;
         }
 
-        try (FileReader reader = new FileReader(stickersFile)) {
+        StickerEvents.CatalogParse event = new StickerEvents.CatalogParse();
+        event.begin();
+
+        try (FileReader reader = new FileReader(stickersFile); StartupProfiler.Section ignored = StartupProfiler.start("catalog", "parse stickers.json")) {
             Sticker[] loadedStickers = gson.fromJson(reader, Sticker[].class);
 
-            stickers.clear();
-            stickers.addAll(List.of(loadedStickers));
+            setStickers(List.of(loadedStickers));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.stickerCount = catalog.getStickers().size();
+            event.frameCount = catalog.getStickers().stream().mapToInt(loaded -> loaded.getTimeline().getFrameCount()).sum();
+            event.commit();
+        }
+
+        CATALOG_LOAD.recordSince(start);
     }
 
     public void saveStickers() {
+        long start = System.nanoTime();
+
         try (FileWriter writer = new FileWriter(stickersFile)) {
-            gson.toJson(stickers, writer);
+            gson.toJson(catalog.getStickers(), writer);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+
+        CATALOG_SAVE.recordSince(start);
+    }
+
+    /**
+     * Replace the sticker catalog, publishing a new {@link StickerCatalog} version and
+     * prebuilding the menu entries for it.
+     *
+     * @param stickers The stickers that make up the new catalog.
+     */
+    public void setStickers(Collection<Sticker> stickers) {
+        try (StartupProfiler.Section ignored = StartupProfiler.start("catalog", "build catalog (" + stickers.size() + " stickers)")) {
+            stickers.forEach(Sticker::prepare); // Compile timelines up front so duplicate frames are shared from load
+
+            StickerCatalog catalog = new StickerCatalog(stickers);
+            stickerMenu.prepare(catalog);
+            this.catalog = catalog;
+        }
+    }
+
+    /**
+     * Merge the catalog entries emitted by the {@link ResourcePackBuilder}. Stickers that
+     * already exist keep their description and permission but take the generated frames.
+     *
+     * @param generated The generated stickers.
+     */
+    public void addGeneratedStickers(List<Sticker> generated) {
+        if (generated.isEmpty()) return;
+
+        StickerCatalog catalog = this.catalog;
+        List<Sticker> stickers = Lists.newArrayList(catalog.getStickers());
+        for (Sticker sticker : generated) {
+            Sticker existing = catalog.getSticker(sticker.getName());
+            if (existing == null) {
+                stickers.add(sticker);
+                continue;
+            }
+
+            // The catalog is a snapshot, so the merged sticker is a copy instead of an edit
+            stickers.set(catalog.indexOf(existing), new Sticker(existing.getName(), existing.getDescription(),
+                    sticker.getFrames(), sticker.getFrameDurations(), existing.getRefreshRate(), existing.getPermission()));
+        }
+
+        setStickers(stickers);
+    }
+
+    public void addSticker(Sticker sticker) {
+        List<Sticker> stickers = Lists.newArrayList(catalog.getStickers());
+        stickers.add(sticker);
+        setStickers(stickers);
+    }
+
+    public StickerCatalog getCatalog() {
+        return catalog;
     }
 
     public List<Sticker> getStickers() {
-        return stickers;
+        return catalog.getStickers();
     }
 
     public Sticker getSticker(String name) {
-        return stickers.stream()
-                .filter(sticker -> sticker.getName().equalsIgnoreCase(name))
-                .findFirst()
-                .orElse(null);
+        return catalog.getSticker(name);
     }
 
+    /**
+     * Check whether a player may use a sticker, using the cached permission key when the
+     * sticker belongs to the current catalog.
+     *
+     * @param player  The player.
+     * @param sticker The sticker.
+     * @return {@code true} if the player may use the sticker.
+     */
+    public boolean canUse(Player player, Sticker sticker) {
+        StickerCatalog catalog = this.catalog;
+        int index = catalog.indexOf(sticker);
+        if (index < 0) return player.hasPermission(sticker.getPermission());
+
+        return stickerPermissions.canUse(player, catalog, index);
+    }
+
+    public StickerPermissions getStickerPermissions() {
+        return stickerPermissions;
+    }
+
+    /**
+     * @return The cooldown in milliseconds, as of the last config reload.
+     */
     public long getStickerCooldown() {
-        return stickerCooldown;
+        return config.get().stickerCooldown();
+    }
+
+    /**
+     * @return The clock placement times and cooldowns are measured with.
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * @return The number of stickers currently placed.
+     */
+    public int getPlacedStickerCount() {
+        return placedStickers.size();
     }
 
     public Component showStickers(Player player) {
-        if (stickers.isEmpty()) throw new IllegalStateException("No stickers found!");
+        StickerCatalog catalog = this.catalog;
+        if (catalog.isEmpty()) throw new IllegalStateException("No stickers found!");
 
+        BitSet permissionKey = stickerPermissions.getKey(player, catalog);
         TextComponent.Builder builder = Component.text();
 
-        for (Sticker sticker : stickers) {
-            if (!player.hasPermission(sticker.getPermission())) continue;
+        for (int i = 0; i < catalog.size(); i++) {
+            if (!catalog.canUse(permissionKey, i)) continue;
 
-            builder.append(sticker.getFrame(0));
+            builder.append(catalog.get(i).getFrame(0));
         }
 
         return builder.build();
     }
 
     public Component showStickersChat(Player player) {
-        if (stickers.isEmpty()) throw new IllegalStateException("No stickers found!");
+        return showStickersChat(player, 1);
+    }
 
-        TextComponent.Builder builder = Component.text().append(Component.text("Available Stickers:\n"));
+    public Component showStickersChat(Player player, int page) {
+        StickerCatalog catalog = this.catalog;
+        if (catalog.isEmpty()) throw new IllegalStateException("No stickers found!");
 
-        for (Sticker sticker : stickers) {
-            if (!player.hasPermission(sticker.getPermission())) continue;
+        return stickerMenu.render(catalog, stickerPermissions.getKey(player, catalog), page);
+    }
 
-            builder.append(sticker.getFrame(0).hoverEvent(
-                    Component.text()
-                            .append(Component.text(sticker.getName() + "\n").color(NamedTextColor.YELLOW))
-                            .append(sticker.getDescription())
-                            .append(MiniMessage.miniMessage().deserialize("\n\n<white>Click<gray> to place this sticker at target location"))
-                            .build()
-            ).clickEvent(ClickEvent.runCommand("/placesticker " + sticker.getName())));
+    public void placeSticker(Player player, Sticker sticker) {
+        StickerEvents.Place event = new StickerEvents.Place();
+        event.begin();
+        long start = System.nanoTime();
+
+        PlacedSticker placedSticker = place(player, sticker);
+        if (placedSticker != null) PLACED.increment();
+        else REJECTED.increment();
+
+        PLACE_LATENCY.recordSince(start);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.stickerName = sticker == null ? null : sticker.getName();
+            event.frameCount = sticker == null ? 0 : sticker.getTimeline().getFrameCount();
+            event.viewers = placedSticker == null ? 0 : placedSticker.getViewerCount();
+            event.placed = placedSticker != null;
+            event.commit();
         }
-
-        return builder.build();
     }
 
-    public void placeSticker(Player player, Sticker sticker) {
+    /**
+     * @return The placed sticker, or {@code null} if the placement was refused.
+     */
+    private @Nullable PlacedSticker place(Player player, Sticker sticker) {
         if (sticker == null) {
-            player.sendRichMessage("<red>Sticker not found!");
+            player.sendMessage(messages.get(Message.STICKER_NOT_FOUND));
             player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_BASS, 1, 1f);
-            return;
+            return null;
         }
 
-        if (!player.hasPermission(sticker.getPermission())) {
-            player.sendRichMessage("<red>You do not have permission to place this sticker!");
+        if (!canUse(player, sticker)) {
+            player.sendMessage(messages.get(Message.NO_PERMISSION));
             player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_BASS, 1, 1f);
-            return;
+            return null;
         }
 
         Block targetBlock = player.getTargetBlockExact(5);
         if (targetBlock == null) {
-            player.sendRichMessage("<red>You must be looking at a surface!");
+            player.sendMessage(messages.get(Message.NO_SURFACE));
             player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_BASS, 1, 1f);
-            return;
+            return null;
         }
 
         BlockFace targetFace = player.getTargetBlockFace(5);
         if (targetFace == null) {
-            player.sendRichMessage("<red>You must be looking at a surface!");
+            player.sendMessage(messages.get(Message.NO_SURFACE));
             player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_BASS, 1, 1f);
-            return;
+            return null;
         }
 
-        NamespacedKey stickerKey = new NamespacedKey(plugin, "last_placed");
-        if (player.getPersistentDataContainer().has(stickerKey)) {
-            long lastPlaced = player.getPersistentDataContainer().get(stickerKey, PersistentDataType.LONG);
+        long now = clock.millis();
+        long stickerCooldown = getStickerCooldown();
+        if (player.getPersistentDataContainer().has(lastPlacedKey)) {
+            long lastPlaced = player.getPersistentDataContainer().get(lastPlacedKey, PersistentDataType.LONG);
 
-            if (lastPlaced + stickerCooldown > System.currentTimeMillis()) {
-                player.sendActionBar(MiniMessage.miniMessage().deserialize("<red>You cannot place another sticker for <white>" +
-                        TimeFormatter.formatTimeDifference((lastPlaced + stickerCooldown) - System.currentTimeMillis(), false)));
+            if (lastPlaced + stickerCooldown > now) {
+                player.sendActionBar(cooldownMessage((lastPlaced + stickerCooldown) - now));
                 player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_BASS, 1, 1f);
-                return;
+                return null;
             }
         }
 
-        PlacedSticker placedSticker = new PlacedSticker(sticker, player, targetBlock, targetFace, stickerCooldown);
+        PlacedSticker placedSticker = new PlacedSticker(this, holograms, sticker, player, targetBlock, targetFace);
         placedStickers.add(placedSticker);
 
-        Scheduler.later(placedSticker::delete, stickerCooldown / 50);
+        Scheduler.later(Scheduler.timed("sticker expiry", () -> expire(placedSticker)), stickerCooldown / 50);
 
         targetBlock.getWorld().playEffect(targetBlock.getLocation(), Effect.STEP_SOUND, Material.SLIME_BLOCK);
 
-        player.getPersistentDataContainer().set(stickerKey, PersistentDataType.LONG, System.currentTimeMillis());
+        player.getPersistentDataContainer().set(lastPlacedKey, PersistentDataType.LONG, now);
+        return placedSticker;
+    }
+
+    /**
+     * Get the action bar shown when a player is still on cooldown. Messages are rendered once per
+     * whole second of remaining time, rounded up, and reused until the template changes.
+     *
+     * @param remainingMillis The remaining cooldown.
+     * @return The message.
+     */
+    private Component cooldownMessage(long remainingMillis) {
+        long seconds = (remainingMillis + 999) / 1000;
+        MessageTemplate template = messages.getTemplate(Message.COOLDOWN);
+        if (seconds >= MAX_CACHED_COOLDOWN_SECONDS) return renderCooldownMessage(template, seconds);
+
+        CooldownMessages cache = cooldownMessages;
+        if (cache.template() != template) {
+            cache = new CooldownMessages(template, new AtomicReferenceArray<>(MAX_CACHED_COOLDOWN_SECONDS));
+            cooldownMessages = cache;
+        }
+
+        Component message = cache.messages().get((int) seconds);
+        if (message == null) {
+            message = renderCooldownMessage(template, seconds);
+            cache.messages().set((int) seconds, message);
+        }
+
+        return message;
+    }
+
+    private static Component renderCooldownMessage(MessageTemplate template, long seconds) {
+        return template.render(TimeFormatter.appendTimeDifference(new StringBuilder(16), seconds * 1000, false).toString());
     }
 
-}
\ No newline at end of file
+    private void expire(PlacedSticker placedSticker) {
+        if (!placedStickers.remove(placedSticker)) return; // Already removed when its owner quit
+
+        placedSticker.delete();
+        EXPIRED.increment();
+    }
+
+    /**
+     * Cooldown action bars by remaining whole seconds, rendered from one version of the template.
+     */
+    private record CooldownMessages(MessageTemplate template, AtomicReferenceArray<Component> messages) { }
+
+}
@@ -0,0 +1,203 @@
+package com.berttowne.stickers.stickers;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, precomputed playback timeline of a {@link Sticker}.
+ * <p>
+ * Identical frames are deduplicated into shared {@link Component} instances and consecutive
+ * holds are run-length encoded, so a sticker that repeats a frame to fake a pause costs a
+ * single run instead of one frame per tick. Playback is resolved through a lookup table
+ * indexed by {@code tick / step}, where {@code step} is the greatest common divisor of all
+ * run durations, so finding the frame to show at any tick is a single array access.
+ */
+public final class StickerTimeline {
+
+    /**
+     * Upper bound on the lookup table size. Timelines whose durations share no useful common
+     * divisor (e.g. a 1-tick frame next to a 10-minute hold) fall back to a binary search over
+     * the run offsets instead of allocating a huge table.
+     */
+    private static final int MAX_LOOKUP_SLOTS = 1 << 12;
+
+    private final Component[] frames;   // distinct frames, shared instances
+    private final int[] sourceFrames;   // authored frame position -> distinct frame index
+    private final int[] runFrames;      // run -> distinct frame index
+    private final int[] runOffsets;     // run -> first tick of the run within a cycle
+    private final int step;             // gcd of all run durations, in ticks
+    private final int length;           // ticks in one full cycle
+    private final int[] lookup;         // (tick / step) -> distinct frame index, null if too large
+
+    private StickerTimeline(Component[] frames, int[] sourceFrames, int[] runFrames, int[] runOffsets, int step, int length) {
+        this.frames = frames;
+        this.sourceFrames = sourceFrames;
+        this.runFrames = runFrames;
+        this.runOffsets = runOffsets;
+        this.step = step;
+        this.length = length;
+
+        int slots = length / step;
+        if (slots > MAX_LOOKUP_SLOTS) {
+            this.lookup = null;
+            return;
+        }
+
+        this.lookup = new int[slots];
+        for (int run = 0; run < runFrames.length; run++) {
+            int end = run + 1 < runOffsets.length ? runOffsets[run + 1] : length;
+            Arrays.fill(lookup, runOffsets[run] / step, end / step, runFrames[run]);
+        }
+    }
+
+    /**
+     * Build a timeline from authored frames.
+     *
+     * @param frames         The authored frames, possibly containing duplicates.
+     * @param frameDurations The hold time in ticks of each authored frame, or {@code null} to use the refresh rate for every frame.
+     *                       Missing or non-positive entries also fall back to the refresh rate.
+     * @param refreshRate    The default hold time in ticks of a frame.
+     * @return The compiled timeline.
+     * @throws IllegalStateException If there are no frames, or one cycle is longer than {@link Integer#MAX_VALUE} ticks.
+     */
+    public static @NotNull StickerTimeline of(@NotNull List<Component> frames, @Nullable List<Integer> frameDurations, int refreshRate) {
+        if (frames.isEmpty()) throw new IllegalStateException("Sticker has no frames!");
+
+        int defaultDuration = Math.max(1, refreshRate);
+        Map<Component, Integer> distinct = Maps.newHashMap();
+        List<Component> distinctFrames = Lists.newArrayList();
+        int[] sourceFrames = new int[frames.size()];
+
+        int[] runFrames = new int[frames.size()];
+        int[] runDurations = new int[frames.size()];
+        int runs = 0;
+
+        for (int i = 0; i < frames.size(); i++) {
+            Component frame = frames.get(i);
+            int index = distinct.computeIfAbsent(frame, key -> {
+                distinctFrames.add(key);
+                return distinctFrames.size() - 1;
+            });
+            sourceFrames[i] = index;
+
+            Integer authored = frameDurations != null && i < frameDurations.size() ? frameDurations.get(i) : null;
+            int duration = authored != null && authored > 0 ? authored : defaultDuration;
+
+            if (runs > 0 && runFrames[runs - 1] == index) {
+                runDurations[runs - 1] = addTicks(runDurations[runs - 1], duration); // Collapse consecutive holds into one run
+            } else {
+                runFrames[runs] = index;
+                runDurations[runs] = duration;
+                runs++;
+            }
+        }
+
+        int[] runOffsets = new int[runs];
+        int length = 0;
+        int step = 0;
+        for (int run = 0; run < runs; run++) {
+            runOffsets[run] = length;
+            length = addTicks(length, runDurations[run]);
+            step = gcd(step, runDurations[run]);
+        }
+
+        return new StickerTimeline(distinctFrames.toArray(Component[]::new), sourceFrames,
+                Arrays.copyOf(runFrames, runs), runOffsets, step, length);
+    }
+
+    private static int addTicks(int a, int b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException("Sticker animation is longer than " + Integer.MAX_VALUE + " ticks!", e);
+        }
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+
+        return a;
+    }
+
+    /**
+     * @return {@code true} if the timeline has more than one distinct frame to cycle through.
+     */
+    public boolean isAnimated() {
+        return frames.length > 1;
+    }
+
+    /**
+     * @return The number of ticks between points at which the frame may change.
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * @return The number of ticks in one full cycle of the animation.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return The number of distinct frames after deduplication.
+     */
+    public int getFrameCount() {
+        return frames.length;
+    }
+
+    /**
+     * @return The number of run-length encoded holds in one cycle.
+     */
+    public int getRunCount() {
+        return runFrames.length;
+    }
+
+    public @NotNull Component getFrame(int index) {
+        return frames[index];
+    }
+
+    /**
+     * Resolve the distinct frame index to show at the given tick since the animation started.
+     *
+     * @param tick The number of ticks elapsed since the start of the animation.
+     * @return The distinct frame index, usable with {@link #getFrame(int)}.
+     */
+    public int frameIndexAt(long tick) {
+        int offset = (int) Math.floorMod(tick, (long) length);
+        if (lookup != null) return lookup[offset / step];
+
+        int run = Arrays.binarySearch(runOffsets, offset);
+        return runFrames[run >= 0 ? run : -run - 2];
+    }
+
+    /**
+     * Resolve the frame to show at the given tick since the animation started.
+     *
+     * @param tick The number of ticks elapsed since the start of the animation.
+     * @return The shared frame instance.
+     */
+    public @NotNull Component frameAt(long tick) {
+        return frames[frameIndexAt(tick)];
+    }
+
+    /**
+     * @return The authored frames with every duplicate replaced by its shared instance.
+     */
+    @NotNull List<Component> getSourceFrames() {
+        return Arrays.stream(sourceFrames).mapToObj(index -> frames[index]).toList();
+    }
+
+}
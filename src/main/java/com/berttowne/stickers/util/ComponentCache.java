@@ -0,0 +1,96 @@
+package com.berttowne.stickers.util;
+
+import com.berttowne.stickers.util.metrics.Metrics;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Bounded two-way cache between MiniMessage strings and {@link Component Components}.
+ * <p>
+ * Catalogs repeat the same description lines, colors and frames many times, so parsing and
+ * serializing through this cache does each distinct string once. Equal strings also
+ * deserialize to the same component instance, which interns repeated lines in memory, and
+ * every parsed or serialized component remembers its string, so saving a catalog that was
+ * loaded from disk serializes nothing. Only strings that were really parsed are mapped to a
+ * component, as MiniMessage may not parse a serialized component back into an equal one.
+ * <p>
+ * Strings are evicted by size. Components are looked up by identity and held weakly, so a
+ * component that is no longer used by any sticker or menu drops out on its own. Hits and
+ * misses are counted in the {@link Metrics}, along with the hit rate shown by {@code /stickers stats}.
+ */
+public final class ComponentCache {
+
+    private static final int MAX_STRINGS = 8192;
+
+    private static final Metrics.Counter DESERIALIZE_HITS = Metrics.counter("stickers_component_cache_deserialize_hits_total", "MiniMessage strings served from the component cache");
+    private static final Metrics.Counter DESERIALIZE_MISSES = Metrics.counter("stickers_component_cache_deserialize_misses_total", "MiniMessage strings parsed");
+    private static final Metrics.Counter SERIALIZE_HITS = Metrics.counter("stickers_component_cache_serialize_hits_total", "Components whose MiniMessage string was cached");
+    private static final Metrics.Counter SERIALIZE_MISSES = Metrics.counter("stickers_component_cache_serialize_misses_total", "Components serialized to MiniMessage");
+
+    private static final Cache<String, Component> COMPONENTS = CacheBuilder.newBuilder().maximumSize(MAX_STRINGS).build();
+    private static final Cache<Component, String> STRINGS = CacheBuilder.newBuilder().weakKeys().maximumSize(MAX_STRINGS).build();
+
+    static {
+        Metrics.gauge("stickers_component_cache_size", "MiniMessage strings held by the component cache", COMPONENTS::size);
+        Metrics.gauge("stickers_component_cache_hit_rate", "Share of component cache lookups answered from the cache", ComponentCache::getHitRate);
+    }
+
+    private ComponentCache() { }
+
+    /**
+     * Parse a MiniMessage string, reusing the component parsed from an equal string before.
+     *
+     * @param miniMessage The MiniMessage string.
+     * @return The component, which may be shared.
+     */
+    public static @NotNull Component deserialize(@NotNull String miniMessage) {
+        Component component = COMPONENTS.getIfPresent(miniMessage);
+        if (component != null) {
+            DESERIALIZE_HITS.increment();
+            return component;
+        }
+
+        DESERIALIZE_MISSES.increment();
+        component = MiniMessage.miniMessage().deserialize(miniMessage);
+
+        Component existing = COMPONENTS.asMap().putIfAbsent(miniMessage, component);
+        if (existing != null) return existing; // Parsed concurrently, keep the first one
+
+        STRINGS.put(component, miniMessage);
+        return component;
+    }
+
+    /**
+     * Serialize a component to MiniMessage, reusing the string of the same component instance.
+     *
+     * @param component The component.
+     * @return The MiniMessage string.
+     */
+    public static @NotNull String serialize(@NotNull Component component) {
+        String miniMessage = STRINGS.getIfPresent(component);
+        if (miniMessage != null) {
+            SERIALIZE_HITS.increment();
+            return miniMessage;
+        }
+
+        SERIALIZE_MISSES.increment();
+        miniMessage = MiniMessage.miniMessage().serialize(component);
+
+        STRINGS.put(component, miniMessage);
+        return miniMessage;
+    }
+
+    /**
+     * @return The share of lookups, in both directions, answered from the cache, between 0 and 1.
+     */
+    private static double getHitRate() {
+        long hits = DESERIALIZE_HITS.get() + SERIALIZE_HITS.get();
+        long total = hits + DESERIALIZE_MISSES.get() + SERIALIZE_MISSES.get();
+
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+}
@@ -1,16 +1,26 @@
 package com.berttowne.stickers.util;
 
 import com.berttowne.stickers.StickersPlugin;
+import com.berttowne.stickers.util.metrics.TaskTimings;
 import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -20,17 +30,149 @@ import java.util.function.Supplier;
 @SuppressWarnings({"UnusedReturnValue", "unused"})
 public final class Scheduler {
 
-    private static final Map<ScheduledTask, Supplier<Boolean>> TASKS = new LinkedHashMap<>();
+    private static final Map<ScheduledTask, Supplier<Boolean>> TASKS = new ConcurrentHashMap<>();
 
-    static {
-        Scheduler.repeatAsync(() -> TASKS.entrySet().removeIf(entry -> {
+    /**
+     * The most {@code io} tasks doing their work at once. Tasks past the limit wait for a permit
+     * on their own virtual thread.
+     */
+    public static final int MAX_IO_TASKS = 64;
+
+    private static final AtomicBoolean POLLING = new AtomicBoolean();
+    private static final Semaphore IO_PERMITS = new Semaphore(MAX_IO_TASKS);
+
+    private static volatile Plugin owner;
+    private static volatile ExecutorService ioExecutor;
+
+    /**
+     * Set the plugin tasks are scheduled for. Defaults to {@link StickersPlugin}; the load tests
+     * schedule for a stand-in plugin on a stand-in server.
+     *
+     * @param plugin The plugin owning every task scheduled from now on.
+     */
+    public static void setOwner(final @NotNull Plugin plugin) {
+        Scheduler.owner = plugin;
+    }
+
+    private static @NotNull Plugin owner() {
+        Plugin owner = Scheduler.owner;
+        if (owner == null) {
+            owner = StickersPlugin.getPlugin(StickersPlugin.class);
+            Scheduler.owner = owner;
+        }
+
+        return owner;
+    }
+
+    /**
+     * @return The number of tasks scheduled with a cancel condition (the {@code repeatUntil}
+     * variants) that are still running.
+     */
+    public static int getConditionalTaskCount() {
+        return TASKS.size();
+    }
+
+    /**
+     * Cancel a task once its condition is met. The condition poller is started with the first
+     * conditional task, rather than when this class is loaded, so the class can be used without
+     * a running server.
+     */
+    private static void cancelWhen(final @Nullable ScheduledTask task, final Supplier<Boolean> until) {
+        if (task == null) return; // The entity was removed before the task was scheduled
+
+        TASKS.put(task, until);
+
+        if (POLLING.compareAndSet(false, true)) {
+            Scheduler.repeatAsync(Scheduler.timed("scheduler conditions", Scheduler::pollConditions, 50L, TimeUnit.MILLISECONDS), 0L, 50L, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Test the condition of every conditional task, cancelling those whose condition is met.
+     */
+    static void pollConditions() {
+        TASKS.entrySet().removeIf(entry -> {
             if (entry.getValue().get()) {
                 entry.getKey().cancel();
                 return true;
             }
 
             return false;
-        }), 0L, 50L, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    // NAMED TASKS
+
+    /**
+     * Record the runs of a task under a name in the {@link TaskTimings}, shown by {@code /stickers timings}.
+     *
+     * @param name The task name, shared by every task doing the same work.
+     * @param run  The {@link Runnable} to time.
+     * @return The timed task, to schedule with any method of this class.
+     */
+    public static @NotNull Runnable timed(final @NotNull String name, final Runnable run) {
+        final TaskTimings.Timing timing = TaskTimings.get(name);
+
+        return () -> {
+            final long start = System.nanoTime();
+            try {
+                run.run();
+            } finally {
+                timing.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * Record the runs of a task under a name in the {@link TaskTimings}.
+     *
+     * @param name The task name, shared by every task doing the same work.
+     * @param run  The {@link Consumer} to time.
+     * @return The timed task, to schedule with any method of this class.
+     */
+    public static @NotNull Consumer<ScheduledTask> timed(final @NotNull String name, final Consumer<ScheduledTask> run) {
+        final TaskTimings.Timing timing = TaskTimings.get(name);
+
+        return task -> {
+            final long start = System.nanoTime();
+            try {
+                run.accept(task);
+            } finally {
+                timing.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * Record the runs of a repeating task under a name in the {@link TaskTimings}, also counting
+     * the runs that start late. The returned task must be scheduled once, with the same period.
+     *
+     * @param name   The task name, shared by every task doing the same work.
+     * @param run    The {@link Runnable} to time.
+     * @param period The time between runs, 50 milliseconds per tick for server thread tasks.
+     * @param unit   The {@link TimeUnit} of the period.
+     * @return The timed task.
+     */
+    public static @NotNull Runnable timed(final @NotNull String name, final Runnable run, final long period, final TimeUnit unit) {
+        final TaskTimings.Timing timing = TaskTimings.get(name);
+        final long periodNanos = unit.toNanos(period);
+
+        return new Runnable() {
+            private long lastStart;
+
+            @Override
+            public void run() {
+                final long start = System.nanoTime();
+                if (lastStart != 0) timing.recordInterval(start - lastStart, periodNanos);
+                lastStart = start;
+
+                try {
+                    run.run();
+                } finally {
+                    timing.record(System.nanoTime() - start);
+                }
+            }
+        };
     }
 
     // ENTITY-ATTACHED TASKS
@@ -44,7 +186,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task, or {@code null} if the entity has been removed.
      */
     public static @Nullable ScheduledTask run(final @NotNull Entity entity, final Consumer<ScheduledTask> run) {
-        return entity.getScheduler().run(StickersPlugin.getPlugin(StickersPlugin.class), run, null);
+        return entity.getScheduler().run(owner(), run, null);
     }
 
     /**
@@ -69,7 +211,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task, or {@code null} if the entity has been removed.
      */
     public static @Nullable ScheduledTask later(final @NotNull Entity entity, final Consumer<ScheduledTask> run, final long delay) {
-        return entity.getScheduler().runDelayed(StickersPlugin.getPlugin(StickersPlugin.class), run, null, delay);
+        return entity.getScheduler().runDelayed(owner(), run, null, delay);
     }
 
     /**
@@ -96,7 +238,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task, or {@code null} if the entity has been removed.
      */
     public static @Nullable ScheduledTask repeat(final @NotNull Entity entity, final Consumer<ScheduledTask> run, final long delay, final long period) {
-        return entity.getScheduler().runAtFixedRate(StickersPlugin.getPlugin(StickersPlugin.class), run, null, delay, period);
+        return entity.getScheduler().runAtFixedRate(owner(), run, null, delay, period);
     }
 
     /**
@@ -138,7 +280,7 @@ public final class Scheduler {
      */
     public static void repeatUntil(final @NotNull Entity entity, final Runnable run, final long delay, final long period, final Supplier<Boolean> until) {
         final ScheduledTask task = Scheduler.repeat(entity, run, delay, period);
-        TASKS.put(task, until);
+        Scheduler.cancelWhen(task, until);
     }
 
     // GLOBAL THREAD TASKS
@@ -160,7 +302,7 @@ public final class Scheduler {
      * @param run The {@link Consumer} to execute.
      */
     public static @NotNull ScheduledTask run(final Consumer<ScheduledTask> run) {
-        return Bukkit.getGlobalRegionScheduler().run(StickersPlugin.getPlugin(StickersPlugin.class), run);
+        return Bukkit.getGlobalRegionScheduler().run(owner(), run);
     }
 
     /**
@@ -182,7 +324,7 @@ public final class Scheduler {
      * @param delay The delay in ticks before running the task.
      */
     public static @NotNull ScheduledTask later(final Consumer<ScheduledTask> run, final long delay) {
-        return Bukkit.getGlobalRegionScheduler().runDelayed(StickersPlugin.getPlugin(StickersPlugin.class), run, delay);
+        return Bukkit.getGlobalRegionScheduler().runDelayed(owner(), run, delay);
     }
 
     /**
@@ -206,7 +348,7 @@ public final class Scheduler {
      * @param period The period in ticks to wait until running again after each run.
      */
     public static @NotNull ScheduledTask repeat(final Consumer<ScheduledTask> run, final long delay, final long period) {
-        return Bukkit.getGlobalRegionScheduler().runAtFixedRate(StickersPlugin.getPlugin(StickersPlugin.class), run, delay, period);
+        return Bukkit.getGlobalRegionScheduler().runAtFixedRate(owner(), run, delay, period);
     }
 
     /**
@@ -233,7 +375,7 @@ public final class Scheduler {
      */
     public static void repeatUntil(final Runnable run, final long delay, final long period, final Supplier<Boolean> until) {
         final ScheduledTask task = Scheduler.repeat(run, delay, period);
-        TASKS.put(task, until);
+        Scheduler.cancelWhen(task, until);
     }
 
     // REGION THREAD TASKS
@@ -259,7 +401,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask run(final Location location, final Consumer<ScheduledTask> run) {
-        return Bukkit.getRegionScheduler().run(StickersPlugin.getPlugin(StickersPlugin.class), location, run);
+        return Bukkit.getRegionScheduler().run(owner(), location, run);
     }
 
     /**
@@ -285,7 +427,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask later(final Location location, final Consumer<ScheduledTask> run, final long delay) {
-        return Bukkit.getRegionScheduler().runDelayed(StickersPlugin.getPlugin(StickersPlugin.class), location, run, delay);
+        return Bukkit.getRegionScheduler().runDelayed(owner(), location, run, delay);
     }
 
     /**
@@ -313,7 +455,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask repeat(final Location location, final Consumer<ScheduledTask> run, final long delay, final long period) {
-        return Bukkit.getRegionScheduler().runAtFixedRate(StickersPlugin.getPlugin(StickersPlugin.class), location, run, delay, period);
+        return Bukkit.getRegionScheduler().runAtFixedRate(owner(), location, run, delay, period);
     }
 
     /**
@@ -341,7 +483,7 @@ public final class Scheduler {
      */
     public static void repeatUntil(final Location location, final Runnable run, final long delay, final long period, final Supplier<Boolean> until) {
         final ScheduledTask task = Scheduler.repeat(location, run, delay, period);
-        TASKS.put(task, until);
+        Scheduler.cancelWhen(task, until);
     }
 
     // ASYNC TASKS
@@ -353,7 +495,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask async(final Consumer<ScheduledTask> run) {
-        return Bukkit.getAsyncScheduler().runNow(StickersPlugin.getPlugin(StickersPlugin.class), run);
+        return Bukkit.getAsyncScheduler().runNow(owner(), run);
     }
 
     /**
@@ -363,7 +505,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask async(final Runnable run) {
-        return Bukkit.getAsyncScheduler().runNow(StickersPlugin.getPlugin(StickersPlugin.class), task -> run.run());
+        return Bukkit.getAsyncScheduler().runNow(owner(), task -> run.run());
     }
 
     /**
@@ -375,7 +517,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask laterAsync(final Consumer<ScheduledTask> run, final long delay, final TimeUnit unit) {
-        return Bukkit.getAsyncScheduler().runDelayed(StickersPlugin.getPlugin(StickersPlugin.class), run, delay, unit);
+        return Bukkit.getAsyncScheduler().runDelayed(owner(), run, delay, unit);
     }
 
     /**
@@ -387,7 +529,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask laterAsync(final Runnable run, final long delay, final TimeUnit unit) {
-        return Bukkit.getAsyncScheduler().runDelayed(StickersPlugin.getPlugin(StickersPlugin.class), task -> run.run(), delay, unit);
+        return Bukkit.getAsyncScheduler().runDelayed(owner(), task -> run.run(), delay, unit);
     }
 
     /**
@@ -400,7 +542,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask repeatAsync(final Consumer<ScheduledTask> run, final long delay, final long period, final TimeUnit unit) {
-        return Bukkit.getAsyncScheduler().runAtFixedRate(StickersPlugin.getPlugin(StickersPlugin.class), run, delay, period, unit);
+        return Bukkit.getAsyncScheduler().runAtFixedRate(owner(), run, delay, period, unit);
     }
 
     /**
@@ -413,7 +555,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask repeatAsync(final Runnable run, final long delay, final long period, final TimeUnit unit) {
-        return Bukkit.getAsyncScheduler().runAtFixedRate(StickersPlugin.getPlugin(StickersPlugin.class), task -> run.run(), delay, period, unit);
+        return Bukkit.getAsyncScheduler().runAtFixedRate(owner(), task -> run.run(), delay, period, unit);
     }
 
     /**
@@ -441,7 +583,145 @@ public final class Scheduler {
      */
     public static void repeatAsyncUntil(final Runnable run, final long delay, final long period, final TimeUnit unit, final Supplier<Boolean> until) {
         final ScheduledTask task = Scheduler.repeatAsync(run, delay, period, unit);
-        TASKS.put(task, until);
+        Scheduler.cancelWhen(task, until);
+    }
+
+    // I/O TASKS
+
+    /**
+     * Run blocking I/O, such as file writes or downloads, on its own virtual thread rather than
+     * on a thread of the {@link io.papermc.paper.threadedregions.scheduler.AsyncScheduler} pool.
+     * At most {@link #MAX_IO_TASKS} tasks do their work at once.
+     * <p>
+     * Continue on a server thread with the executors of this class, e.g.
+     * {@code Scheduler.io(this::read).thenAcceptAsync(this::apply, Scheduler.executor(player))}.
+     *
+     * @param task The {@link Supplier} doing the I/O.
+     * @return A future completed with the task's result, or exceptionally with what it threw.
+     */
+    public static <T> @NotNull CompletableFuture<T> io(final Supplier<T> task) {
+        return io(null, task);
+    }
+
+    /**
+     * Run blocking I/O on its own virtual thread, holding a permit of {@code limit} as well as one
+     * of the {@link #MAX_IO_TASKS} shared by every task, so a kind of I/O can be limited further.
+     *
+     * @param limit The {@link Semaphore} limiting this kind of I/O, or {@code null} for only the shared limit.
+     * @param task  The {@link Supplier} doing the I/O.
+     * @return A future completed with the task's result, or exceptionally with what it threw.
+     * @see #io(Supplier)
+     */
+    public static <T> @NotNull CompletableFuture<T> io(final @Nullable Semaphore limit, final Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            acquire(limit);
+            try {
+                acquire(IO_PERMITS);
+                try {
+                    return task.get();
+                } finally {
+                    IO_PERMITS.release();
+                }
+            } finally {
+                if (limit != null) limit.release();
+            }
+        }, ioExecutor());
+    }
+
+    /**
+     * Run blocking I/O on its own virtual thread.
+     *
+     * @param task The {@link Runnable} doing the I/O.
+     * @return A future completed once the task ran, or exceptionally with what it threw.
+     * @see #io(Supplier)
+     */
+    public static @NotNull CompletableFuture<Void> io(final Runnable task) {
+        return io(null, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private static void acquire(final @Nullable Semaphore semaphore) {
+        if (semaphore == null) return;
+
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private static @NotNull ExecutorService ioExecutor() {
+        ExecutorService executor = ioExecutor;
+        if (executor != null) return executor;
+
+        synchronized (Scheduler.class) {
+            if (ioExecutor == null) ioExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Stickers I/O ", 0).factory());
+            return ioExecutor;
+        }
+    }
+
+    /**
+     * @return The number of {@code io} tasks currently doing their work.
+     */
+    public static int getIoTaskCount() {
+        return MAX_IO_TASKS - IO_PERMITS.availablePermits();
+    }
+
+    /**
+     * Wait for every {@code io} task to finish, such as the saves started while the plugin
+     * disables. Tasks submitted afterwards start a new executor.
+     *
+     * @param timeout The longest time to wait.
+     * @param unit    The {@link TimeUnit} of the timeout.
+     * @return {@code false} if tasks were still running when the timeout passed. They are interrupted.
+     */
+    public static boolean drainIo(final long timeout, final TimeUnit unit) {
+        ExecutorService executor;
+        synchronized (Scheduler.class) {
+            executor = ioExecutor;
+            ioExecutor = null;
+        }
+
+        if (executor == null) return true;
+
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(timeout, unit)) return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        executor.shutdownNow();
+        return false;
+    }
+
+    /**
+     * @return An {@link Executor} running tasks on the global region, e.g. to continue an {@code io} future there.
+     */
+    public static @NotNull Executor executor() {
+        return run -> Bukkit.getGlobalRegionScheduler().execute(owner(), run);
+    }
+
+    /**
+     * @param entity The {@link Entity} whose owning thread should run the tasks.
+     * @return An {@link Executor} running tasks on the entity's thread. A future continued on it
+     * completes exceptionally if the entity was already removed.
+     */
+    public static @NotNull Executor executor(final @NotNull Entity entity) {
+        return run -> {
+            if (!entity.getScheduler().execute(owner(), run, null, 1L)) throw new RejectedExecutionException(entity + " was removed");
+        };
+    }
+
+    /**
+     * @param location The {@link Location} whose region should run the tasks.
+     * @return An {@link Executor} running tasks on the thread owning the location's region.
+     */
+    public static @NotNull Executor executor(final @NotNull Location location) {
+        return run -> Bukkit.getRegionScheduler().execute(owner(), location, run);
     }
 
-}
\ No newline at end of file
+}
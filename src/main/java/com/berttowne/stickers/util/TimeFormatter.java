@@ -2,6 +2,7 @@ package com.berttowne.stickers.util;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.Calendar;
 
@@ -15,8 +16,39 @@ public class TimeFormatter {
     private static final long MILLIS_IN_YEAR = MILLIS_IN_DAY * 365;
 
     public static @NotNull String formatTimeDifference(long millis, boolean fullWords) {
-        StringBuilder sb = new StringBuilder();
+        return appendTimeDifference(new StringBuilder(24), millis, fullWords).toString();
+    }
+
+    /**
+     * Append a time difference, formatted as by {@link #formatTimeDifference(long, boolean)},
+     * without allocating.
+     *
+     * @param sb        The builder to append to.
+     * @param millis    The time difference in milliseconds.
+     * @param fullWords Whether to write {@code 2 minutes} instead of {@code 2m}.
+     * @return The builder.
+     */
+    public static @NotNull StringBuilder appendTimeDifference(@NotNull StringBuilder sb, long millis, boolean fullWords) {
+        try {
+            appendTimeDifference((Appendable) sb, millis, fullWords);
+        } catch (IOException e) {
+            throw new AssertionError(e); // StringBuilder never throws
+        }
 
+        return sb;
+    }
+
+    /**
+     * Append a time difference, formatted as by {@link #formatTimeDifference(long, boolean)}.
+     * Nothing is allocated besides what the {@link Appendable} itself allocates.
+     *
+     * @param out       Where to append to.
+     * @param millis    The time difference in milliseconds.
+     * @param fullWords Whether to write {@code 2 minutes} instead of {@code 2m}.
+     * @return The appendable.
+     * @throws IOException If appending fails.
+     */
+    public static <A extends Appendable> @NotNull A appendTimeDifference(@NotNull A out, long millis, boolean fullWords) throws IOException {
         long years = millis / MILLIS_IN_YEAR;
         millis %= MILLIS_IN_YEAR;
         long months = millis / MILLIS_IN_MONTH;
@@ -29,14 +61,15 @@ public class TimeFormatter {
         millis %= MILLIS_IN_MINUTE;
         long seconds = millis / MILLIS_IN_SECOND;
 
-        if (years > 0) appendTimeUnit(sb, years, fullWords ? " year" : "yr", fullWords);
-        if (months > 0) appendTimeUnit(sb, months, fullWords ? " month" : "mo", fullWords);
-        if (days > 0) appendTimeUnit(sb, days, fullWords ? " day" : "d", fullWords);
-        if (hours > 0) appendTimeUnit(sb, hours, fullWords ? " hour" : "h", fullWords);
-        if (minutes > 0) appendTimeUnit(sb, minutes, fullWords ? " minute" : "m", fullWords);
-        if (seconds > 0) appendTimeUnit(sb, seconds, fullWords ? " second" : "s", fullWords);
+        boolean first = true;
+        first = appendTimeUnit(out, years, fullWords ? " year" : "yr", fullWords, first);
+        first = appendTimeUnit(out, months, fullWords ? " month" : "mo", fullWords, first);
+        first = appendTimeUnit(out, days, fullWords ? " day" : "d", fullWords, first);
+        first = appendTimeUnit(out, hours, fullWords ? " hour" : "h", fullWords, first);
+        first = appendTimeUnit(out, minutes, fullWords ? " minute" : "m", fullWords, first);
+        appendTimeUnit(out, seconds, fullWords ? " second" : "s", fullWords, first);
 
-        return sb.toString().trim();
+        return out;
     }
 
     public static @NotNull String formatTimeDifference(@NotNull Calendar start, @NotNull Calendar end, boolean fullWords) {
@@ -49,13 +82,30 @@ public class TimeFormatter {
         return formatTimeDifference(date, now, fullWords);
     }
 
-    private static void appendTimeUnit(StringBuilder sb, long value, String unit, boolean fullWords) {
-        if (value >= 0) {
-            sb.append(value).append(unit);
-            if (fullWords && value > 1) {
-                sb.append("s");
-            }
-            sb.append(" ");
+    /**
+     * @return Whether nothing has been appended yet.
+     */
+    private static boolean appendTimeUnit(Appendable out, long value, String unit, boolean fullWords, boolean first) throws IOException {
+        if (value <= 0) return first;
+
+        if (!first) out.append(' ');
+        appendDigits(out, value);
+        out.append(unit);
+        if (fullWords && value > 1) out.append('s');
+
+        return false;
+    }
+
+    /**
+     * Append a positive number digit by digit, as {@link Appendable} has no way to append a
+     * number without turning it into a {@link String} first.
+     */
+    private static void appendDigits(Appendable out, long value) throws IOException {
+        long divisor = 1;
+        while (value / divisor >= 10) divisor *= 10;
+
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
         }
     }
 
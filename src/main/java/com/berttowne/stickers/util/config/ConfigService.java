@@ -0,0 +1,129 @@
+package com.berttowne.stickers.util.config;
+
+import com.berttowne.stickers.util.Scheduler;
+import com.berttowne.stickers.util.injection.Service;
+import com.berttowne.stickers.util.injection.ServiceOptions;
+import com.google.auto.service.AutoService;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+
+/**
+ * Holds the current {@link StickersConfig}. The snapshot is replaced as a whole, so readers
+ * always see every setting from the same version of the file, and {@link #get()} is a single
+ * volatile read. {@link #reload()} reads and validates the file off the main thread, keeping the
+ * current snapshot if the new one is invalid, and tells the {@link Listener Listeners} what changed.
+ */
+@Singleton
+@AutoService(Service.class)
+@ServiceOptions(threadSafe = true)
+public class ConfigService implements Service {
+
+    @Inject private Plugin plugin;
+
+    private final List<Listener> listeners = Lists.newCopyOnWriteArrayList();
+
+    private volatile StickersConfig config;
+
+    @Override
+    public void onLoad() {
+        this.config = StickersConfig.from(plugin.getConfig());
+    }
+
+    /**
+     * @return The current snapshot.
+     */
+    public @NotNull StickersConfig get() {
+        return config;
+    }
+
+    /**
+     * Be told whenever a reload changes the config.
+     *
+     * @param listener The listener, called on the thread that read the file.
+     */
+    public void addListener(@NotNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Read, validate and publish {@code config.yml} off the main thread.
+     *
+     * @return A future completed with the paths of the changed settings once the new snapshot is in use,
+     * or failed with an {@link IllegalArgumentException} naming the invalid setting, in which case the
+     * current snapshot is kept.
+     */
+    public @NotNull CompletableFuture<List<String>> reload() {
+        return Scheduler.io(this::apply);
+    }
+
+    /**
+     * Replace the snapshot with the file's, one reload at a time so an older file never wins.
+     */
+    private synchronized @NotNull List<String> apply() {
+        StickersConfig previous = config;
+        StickersConfig current = StickersConfig.from(read());
+        List<String> changed = previous.diff(current);
+        if (changed.isEmpty()) return changed;
+
+        this.config = current;
+        plugin.getLogger().info("Config reloaded, changed: " + String.join(", ", changed));
+        if (changed.contains("injector-stage") || changed.contains("resource-pack.builder") || changed.contains("resource-pack.server")) {
+            plugin.getLogger().warning("Changes to injector-stage, resource-pack.builder and resource-pack.server apply after a restart");
+        }
+
+        for (Listener listener : listeners) {
+            try {
+                listener.onReload(previous, current, changed);
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not apply the reloaded config", e);
+            }
+        }
+
+        return changed;
+    }
+
+    private @NotNull Configuration read() {
+        YamlConfiguration yaml = new YamlConfiguration();
+        Configuration defaults = plugin.getConfig().getDefaults();
+        if (defaults != null) yaml.setDefaults(defaults);
+
+        try {
+            yaml.load(new File(plugin.getDataFolder(), "config.yml"));
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        } catch (InvalidConfigurationException e) {
+            throw new IllegalArgumentException("config.yml is not valid YAML: " + e.getMessage(), e);
+        }
+
+        return yaml;
+    }
+
+    /**
+     * Applies a reloaded config.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * @param previous The snapshot that was replaced.
+         * @param current  The snapshot now in use.
+         * @param changed  The paths of the changed settings, never empty.
+         */
+        void onReload(@NotNull StickersConfig previous, @NotNull StickersConfig current, @NotNull List<String> changed);
+
+    }
+
+}
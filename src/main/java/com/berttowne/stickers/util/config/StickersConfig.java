@@ -0,0 +1,261 @@
+package com.berttowne.stickers.util.config;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapDifference;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.inject.Stage;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable, validated snapshot of {@code config.yml}. Every setting is read and checked once
+ * by {@link #from(ConfigurationSection)}, so code that needs a setting reads a field instead of
+ * looking it up in Bukkit's configuration maps.
+ *
+ * @param stickerCooldown Milliseconds between two placements of the same player, and how long a sticker stays.
+ * @param messages        Message templates by key, as configured.
+ * @param metrics         The metrics file settings.
+ * @param timings         The scheduler task budgets.
+ * @param injectorStage   The Guice stage the plugin boots in.
+ * @param resourcePack    The resource pack settings.
+ * @see ConfigService
+ */
+public record StickersConfig(long stickerCooldown, @NotNull Map<String, String> messages, @NotNull Metrics metrics,
+                             @NotNull Timings timings, @NotNull Stage injectorStage, @NotNull ResourcePack resourcePack) {
+
+    private static final int PRIVATE_USE_START = 0xE000;
+    private static final int PRIVATE_USE_END = 0xF8FF;
+
+    /**
+     * @return The config with every setting at its default.
+     */
+    public static @NotNull StickersConfig defaults() {
+        return from(new MemoryConfiguration());
+    }
+
+    /**
+     * Read and validate a config. Missing settings take their default.
+     *
+     * @param config The config root.
+     * @return The snapshot.
+     * @throws IllegalArgumentException If a setting has the wrong type or an invalid value, naming the setting.
+     */
+    public static @NotNull StickersConfig from(@NotNull ConfigurationSection config) {
+        long stickerCooldown = getLong(config, "sticker-cooldown", 30000);
+        check(stickerCooldown >= 0, "sticker-cooldown", "must not be negative");
+
+        Map<String, String> messages = Maps.newLinkedHashMap();
+        ConfigurationSection messagesSection = getSection(config, "messages");
+        if (messagesSection != null) {
+            for (String key : messagesSection.getKeys(false)) {
+                messages.put(key, getString(messagesSection, key, ""));
+            }
+        }
+
+        Metrics metrics = new Metrics(getString(config, "metrics.file", "metrics.prom"), getLong(config, "metrics.write-interval", 60));
+        check(!metrics.file().isBlank(), "metrics.file", "must not be empty");
+        check(metrics.writeInterval() >= 0, "metrics.write-interval", "must not be negative");
+
+        Timings timings = new Timings(getLong(config, "timings.budget", 25), getLong(config, "timings.drift-tolerance", 50));
+        check(timings.budget() >= 0, "timings.budget", "must not be negative");
+        check(timings.driftTolerance() >= 0, "timings.drift-tolerance", "must not be negative");
+
+        String stageName = getString(config, "injector-stage", "DEVELOPMENT");
+        Stage injectorStage;
+        try {
+            injectorStage = Stage.valueOf(stageName.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw invalid("injector-stage", "must be DEVELOPMENT or PRODUCTION, not " + stageName);
+        }
+
+        return new StickersConfig(stickerCooldown, Collections.unmodifiableMap(messages), metrics, timings, injectorStage, readResourcePack(config));
+    }
+
+    private static @NotNull ResourcePack readResourcePack(@NotNull ConfigurationSection config) {
+        List<PackVariant> variants = Lists.newArrayList();
+        ConfigurationSection variantsSection = getSection(config, "resource-pack.variants");
+        if (variantsSection != null) {
+            for (String name : variantsSection.getKeys(false)) {
+                String path = "resource-pack.variants." + name;
+                ConfigurationSection variant = getSection(config, path);
+                if (variant == null) throw invalid(path, "must be a section with a url");
+
+                variants.add(new PackVariant(name, getString(variant, "url", null), getString(variant, "hash", null), (int) getLong(variant, "max-protocol", -1)));
+            }
+        }
+
+        List<AddOn> addOns = Lists.newArrayList();
+        if (config.contains("resource-pack.add-ons") && !config.isList("resource-pack.add-ons")) throw invalid("resource-pack.add-ons", "must be a list");
+        for (Map<?, ?> addOn : config.getMapList("resource-pack.add-ons")) {
+            Object url = addOn.get("url");
+            Object hash = addOn.get("hash");
+            addOns.add(new AddOn(url == null ? null : url.toString(), hash == null ? null : hash.toString()));
+        }
+
+        String firstCodepoint = getString(config, "resource-pack.builder.first-codepoint", "E000");
+        int codepoint;
+        try {
+            codepoint = Integer.parseInt(firstCodepoint, 16);
+        } catch (NumberFormatException e) {
+            throw invalid("resource-pack.builder.first-codepoint", "must be a hexadecimal codepoint, not " + firstCodepoint);
+        }
+        check(codepoint >= PRIVATE_USE_START && codepoint <= PRIVATE_USE_END, "resource-pack.builder.first-codepoint", "must be between E000 and F8FF");
+
+        PackBuilder builder = new PackBuilder(
+                getBoolean(config, "resource-pack.builder.enabled", false),
+                getString(config, "resource-pack.builder.sources", "sources"),
+                (int) getLong(config, "resource-pack.builder.glyph-height", 32),
+                (int) getLong(config, "resource-pack.builder.ascent", 24),
+                (int) getLong(config, "resource-pack.builder.pack-format", 69),
+                codepoint);
+        check(builder.glyphHeight() > 0, "resource-pack.builder.glyph-height", "must be positive");
+        check(builder.ascent() <= builder.glyphHeight(), "resource-pack.builder.ascent", "must not be above glyph-height");
+        check(builder.packFormat() > 0, "resource-pack.builder.pack-format", "must be positive");
+
+        PackServer server = new PackServer(
+                getBoolean(config, "resource-pack.server.enabled", false),
+                getString(config, "resource-pack.server.bind", "0.0.0.0"),
+                (int) getLong(config, "resource-pack.server.port", 8765),
+                getString(config, "resource-pack.server.public-url", ""),
+                getString(config, "resource-pack.server.file", "pack.zip"),
+                (int) getLong(config, "resource-pack.server.max-concurrent-downloads", 32));
+        check(server.port() > 0 && server.port() <= 65535, "resource-pack.server.port", "must be between 1 and 65535");
+        check(server.maxConcurrentDownloads() > 0, "resource-pack.server.max-concurrent-downloads", "must be positive");
+
+        return new ResourcePack(
+                getString(config, "resource-pack.url", null),
+                getString(config, "resource-pack.hash", null),
+                getBoolean(config, "resource-pack.generate-hash", false),
+                getBoolean(config, "resource-pack.skip-applied-on-join", false),
+                List.copyOf(variants), List.copyOf(addOns), builder, server);
+    }
+
+    /**
+     * List the settings that differ between two snapshots, using their config paths.
+     *
+     * @param other The snapshot to compare to.
+     * @return The paths of the changed settings, empty if both are equal.
+     */
+    public @NotNull List<String> diff(@NotNull StickersConfig other) {
+        List<String> changed = Lists.newArrayList();
+
+        compare(changed, "sticker-cooldown", stickerCooldown, other.stickerCooldown);
+        MapDifference<String, String> messageChanges = Maps.difference(messages, other.messages);
+        for (String key : Sets.union(messageChanges.entriesDiffering().keySet(), Sets.symmetricDifference(messages.keySet(), other.messages.keySet()))) {
+            changed.add("messages." + key);
+        }
+        compare(changed, "metrics.file", metrics.file(), other.metrics.file());
+        compare(changed, "metrics.write-interval", metrics.writeInterval(), other.metrics.writeInterval());
+        compare(changed, "timings.budget", timings.budget(), other.timings.budget());
+        compare(changed, "timings.drift-tolerance", timings.driftTolerance(), other.timings.driftTolerance());
+        compare(changed, "injector-stage", injectorStage, other.injectorStage);
+
+        ResourcePack pack = resourcePack, otherPack = other.resourcePack;
+        compare(changed, "resource-pack.url", pack.url(), otherPack.url());
+        compare(changed, "resource-pack.hash", pack.hash(), otherPack.hash());
+        compare(changed, "resource-pack.generate-hash", pack.generateHash(), otherPack.generateHash());
+        compare(changed, "resource-pack.skip-applied-on-join", pack.skipAppliedOnJoin(), otherPack.skipAppliedOnJoin());
+        compare(changed, "resource-pack.variants", pack.variants(), otherPack.variants());
+        compare(changed, "resource-pack.add-ons", pack.addOns(), otherPack.addOns());
+        compare(changed, "resource-pack.builder", pack.builder(), otherPack.builder());
+        compare(changed, "resource-pack.server", pack.server(), otherPack.server());
+
+        return changed;
+    }
+
+    private static void compare(@NotNull List<String> changed, @NotNull String path, @Nullable Object value, @Nullable Object other) {
+        if (!Objects.equals(value, other)) changed.add(path);
+    }
+
+    private static @Nullable ConfigurationSection getSection(@NotNull ConfigurationSection config, @NotNull String path) {
+        if (config.contains(path) && !config.isConfigurationSection(path)) throw invalid(path, "must be a section");
+        return config.getConfigurationSection(path);
+    }
+
+    private static String getString(@NotNull ConfigurationSection config, @NotNull String path, @Nullable String def) {
+        Object value = config.get(path);
+        if (value == null) return def;
+        if (value instanceof ConfigurationSection || value instanceof List) throw invalid(path, "must be a single value");
+
+        return value.toString();
+    }
+
+    private static long getLong(@NotNull ConfigurationSection config, @NotNull String path, long def) {
+        Object value = config.get(path);
+        if (value == null) return def;
+        if (!(value instanceof Integer || value instanceof Long)) throw invalid(path, "must be a whole number, not " + value);
+
+        return ((Number) value).longValue();
+    }
+
+    private static boolean getBoolean(@NotNull ConfigurationSection config, @NotNull String path, boolean def) {
+        Object value = config.get(path);
+        if (value == null) return def;
+        if (!(value instanceof Boolean bool)) throw invalid(path, "must be true or false, not " + value);
+
+        return bool;
+    }
+
+    private static void check(boolean valid, @NotNull String path, @NotNull String problem) {
+        if (!valid) throw invalid(path, problem);
+    }
+
+    private static @NotNull IllegalArgumentException invalid(@NotNull String path, @NotNull String problem) {
+        return new IllegalArgumentException(path + " " + problem);
+    }
+
+    /**
+     * @param file          The Prometheus text file, relative to the plugin folder.
+     * @param writeInterval Seconds between rewrites of the file, 0 if it is not written.
+     */
+    public record Metrics(@NotNull String file, long writeInterval) { }
+
+    /**
+     * @param budget         Milliseconds a named scheduler task may run for before it counts as an overrun, 0 for no budget.
+     * @param driftTolerance Milliseconds a run of a named repeating task may start late.
+     */
+    public record Timings(long budget, long driftTolerance) { }
+
+    /**
+     * @param url               The default pack, or {@code null} if not set.
+     * @param hash              Its SHA-1, or {@code null} or blank to generate it.
+     * @param generateHash      Whether configured hashes are generated anyway.
+     * @param skipAppliedOnJoin Whether joining players whose last applied pack matches are not sent it again.
+     * @param variants          The other variants, in config order.
+     * @param addOns            Packs sent alongside every variant.
+     * @param builder           The pack builder settings.
+     * @param server            The built-in pack server settings.
+     */
+    public record ResourcePack(@Nullable String url, @Nullable String hash, boolean generateHash, boolean skipAppliedOnJoin,
+                               @NotNull List<PackVariant> variants, @NotNull List<AddOn> addOns,
+                               @NotNull PackBuilder builder, @NotNull PackServer server) { }
+
+    /**
+     * @param maxProtocol The newest client protocol the variant is picked for, or -1 for any.
+     */
+    public record PackVariant(@NotNull String name, @Nullable String url, @Nullable String hash, int maxProtocol) { }
+
+    public record AddOn(@Nullable String url, @Nullable String hash) { }
+
+    /**
+     * @param sources        The image folder, relative to the plugin folder.
+     * @param firstCodepoint The first private use codepoint assigned to sticker glyphs.
+     */
+    public record PackBuilder(boolean enabled, @NotNull String sources, int glyphHeight, int ascent, int packFormat, int firstCodepoint) { }
+
+    /**
+     * @param publicUrl The address players download the pack from, blank if not set.
+     * @param file      The pack zip, relative to the plugin folder.
+     */
+    public record PackServer(boolean enabled, @NotNull String bind, int port, @NotNull String publicUrl, @NotNull String file, int maxConcurrentDownloads) { }
+
+}
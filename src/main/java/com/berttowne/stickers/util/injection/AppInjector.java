@@ -1,9 +1,11 @@
 package com.berttowne.stickers.util.injection;
 
+import com.berttowne.stickers.util.metrics.StartupProfiler;
 import com.google.common.collect.Sets;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
+import com.google.inject.Stage;
 
 import java.util.ServiceLoader;
 import java.util.Set;
@@ -12,6 +14,7 @@ import java.util.stream.Stream;
 public class AppInjector {
 
     private static Injector injector;
+    private static Stage stage = Stage.DEVELOPMENT;
 
     private static final Set<InjectionRoot> injectionRoots = Sets.newHashSet();
     private static final Set<ClassLoader> rootClassLoaders = Sets.newHashSet();
@@ -34,16 +37,31 @@ public class AppInjector {
         rootModules.add(module);
     }
 
+    /**
+     * Set the stage the injector is created in. {@link Stage#PRODUCTION} creates every singleton
+     * while booting, {@link Stage#DEVELOPMENT} (the default) creates them when first needed.
+     *
+     * @param stage The stage.
+     */
+    public static void setStage(Stage stage) {
+        if (injector != null) {
+            throw new IllegalStateException("AppInjector already running!");
+        }
+
+        AppInjector.stage = stage;
+    }
+
     public static void boot() {
         if (injector != null) {
             return;
         }
 
-        rootClassLoaders.forEach(classLoader -> ServiceLoader.load(Module.class, classLoader).forEach(rootModules::add));
-        injector = Guice.createInjector(rootModules);
+        StartupProfiler.time("injector", "module discovery", () ->
+                rootClassLoaders.forEach(classLoader -> ServiceLoader.load(Module.class, classLoader).forEach(rootModules::add)));
+        injector = StartupProfiler.time("injector", "create injector (" + stage + ")", () -> Guice.createInjector(stage, rootModules));
         GuiceServiceLoader.setGlobalInjector(injector);
 
-        injectionRoots.forEach(injectionRoot -> injector.injectMembers(injectionRoot));
+        StartupProfiler.time("injector", "inject roots", () -> injectionRoots.forEach(injectionRoot -> injector.injectMembers(injectionRoot)));
     }
 
     public static <T> Stream<T> getServices(Class<T> serviceType) {
@@ -0,0 +1,28 @@
+package com.berttowne.stickers.util.injection;
+
+import com.berttowne.stickers.util.ComponentCache;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import net.kyori.adventure.text.Component;
+
+import java.io.IOException;
+
+/**
+ * Serializes {@link Component Components} as MiniMessage strings, so they are easy to read and
+ * edit in the plugin's JSON files. Goes through the {@link ComponentCache}, so repeated lines
+ * and frames are parsed once and share one instance.
+ */
+public class ComponentTypeAdapter extends TypeAdapter<Component> {
+
+    @Override
+    public void write(JsonWriter out, Component value) throws IOException {
+        out.value(ComponentCache.serialize(value));
+    }
+
+    @Override
+    public Component read(JsonReader in) throws IOException {
+        return ComponentCache.deserialize(in.nextString());
+    }
+
+}
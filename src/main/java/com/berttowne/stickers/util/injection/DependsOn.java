@@ -0,0 +1,25 @@
+package com.berttowne.stickers.util.injection;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the services a {@link Service} needs. Every lifecycle phase of a service runs after
+ * the same phase of its dependencies, and {@link Service#onDisable()} runs before theirs.
+ *
+ * @see ServiceRegistry
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DependsOn {
+
+    /**
+     * @return The services this service depends on.
+     */
+    Class<? extends Service>[] value();
+
+}
@@ -1,19 +1,19 @@
 package com.berttowne.stickers.util.injection;
 
 import com.berttowne.stickers.StickersPlugin;
+import com.berttowne.stickers.util.config.ConfigService;
+import com.berttowne.stickers.util.config.StickersConfig;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.TypeAdapter;
-import com.google.gson.stream.JsonReader;
-import com.google.gson.stream.JsonWriter;
 import com.google.inject.AbstractModule;
 import com.google.inject.Module;
+import com.google.inject.Provides;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.Bukkit;
 import org.bukkit.Server;
+import org.bukkit.plugin.Plugin;
 
-import java.io.IOException;
+import java.time.Clock;
 
 public class InjectionModule extends AbstractModule {
 
@@ -28,23 +28,22 @@ public class InjectionModule extends AbstractModule {
         AppInjector.getServices(Module.class).forEach(this::install);
 
         bind(StickersPlugin.class).toInstance(this.plugin);
+        bind(Plugin.class).toInstance(this.plugin);
         bind(Server.class).toInstance(Bukkit.getServer());
+        bind(Clock.class).toInstance(Clock.systemUTC());
         bind(Gson.class).toInstance(new GsonBuilder()
-                .registerTypeAdapter(Component.class, new TypeAdapter<Component>() {
-                    // Automatically serialize/deserialize Components as MiniMessage Strings for ease of use
-
-                    @Override
-                    public void write(JsonWriter out, Component value) throws IOException {
-                        out.value(MiniMessage.miniMessage().serialize(value));
-                    }
-
-                    @Override
-                    public Component read(JsonReader in) throws IOException {
-                        return MiniMessage.miniMessage().deserialize(in.nextString());
-                    }
-                })
+                .registerTypeAdapter(Component.class, new ComponentTypeAdapter())
                 .setPrettyPrinting()
                 .create());
     }
 
+    /**
+     * The current config snapshot. Inject a {@link com.google.inject.Provider} of it, or the
+     * {@link ConfigService}, to see reloads.
+     */
+    @Provides
+    StickersConfig provideConfig(ConfigService configService) {
+        return configService.get();
+    }
+
 }
\ No newline at end of file
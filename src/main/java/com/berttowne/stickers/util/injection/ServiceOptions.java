@@ -0,0 +1,33 @@
+package com.berttowne.stickers.util.injection;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tells the {@link ServiceRegistry} how a {@link Service} may be run.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ServiceOptions {
+
+    /**
+     * Thread-safe services don't use the Bukkit API in {@link Service#onLoad()} or
+     * {@link Service#onDisable()} (reading the config is fine), so those run on worker threads:
+     * loading concurrently with other services, and disabling under {@link #shutdownTimeout()}.
+     * {@link Service#onEnable()} always runs on the server thread.
+     *
+     * @return {@code true} if the service is thread-safe.
+     */
+    boolean threadSafe() default false;
+
+    /**
+     * @return The seconds to wait for {@link Service#onDisable()} before moving on to the next
+     * service. Services that aren't thread-safe can't be interrupted and are only reported.
+     */
+    int shutdownTimeout() default 10;
+
+}
@@ -0,0 +1,255 @@
+package com.berttowne.stickers.util.injection;
+
+import com.berttowne.stickers.util.metrics.StartupProfiler;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Injector;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@link Service services} and {@link Listener listeners} of a plugin, discovered once with
+ * {@link GuiceServiceLoader} and kept in dependency order for every lifecycle phase, so the
+ * provider files are never scanned again after boot.
+ * <p>
+ * Services are ordered by their {@link DependsOn} declarations, keeping discovery order
+ * otherwise. {@link Service#onLoad()} of {@link ServiceOptions#threadSafe() thread-safe}
+ * services runs on a worker pool as soon as their dependencies are loaded, so independent
+ * work such as parsing the catalog and hashing the resource pack overlaps, while the other
+ * services load on the calling (server) thread. {@link Service#onEnable()} always runs on the
+ * calling thread, and services are disabled in reverse order with a timeout each.
+ * <p>
+ * The time spent constructing, loading and enabling each service is recorded with the
+ * {@link StartupProfiler}.
+ */
+public class ServiceRegistry {
+
+    private final Logger logger;
+    private final List<Service> services;
+    private final List<Listener> listeners;
+    private final Map<Service, List<Service>> dependencies;
+
+    private ServiceRegistry(Logger logger, List<Service> services, List<Listener> listeners, Map<Service, List<Service>> dependencies) {
+        this.logger = logger;
+        this.services = Collections.unmodifiableList(services);
+        this.listeners = Collections.unmodifiableList(listeners);
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Discover and instantiate every service and listener, and order the services by their
+     * dependencies.
+     *
+     * @param injector The injector used to create instances.
+     * @param loader   The class loader to read the provider files from.
+     * @param logger   The logger to report shutdown problems to.
+     * @return The registry.
+     * @throws IllegalStateException If a dependency is not a registered service or the
+     *                               dependencies are cyclic.
+     */
+    public static @NotNull ServiceRegistry build(@NotNull Injector injector, @NotNull ClassLoader loader, @NotNull Logger logger) {
+        List<Service> services = Lists.newArrayList();
+        List<Listener> listeners = Lists.newArrayList();
+
+        discover(GuiceServiceLoader.load(Service.class, injector, loader), services);
+        discover(GuiceServiceLoader.load(Listener.class, injector, loader), listeners);
+
+        Map<Service, List<Service>> dependencies = resolveDependencies(services);
+
+        return new ServiceRegistry(logger, sort(services, dependencies), listeners, dependencies);
+    }
+
+    private static <S> void discover(GuiceServiceLoader<S> loader, List<S> into) {
+        Iterator<S> iterator = loader.iterator();
+
+        while (true) {
+            long start = System.nanoTime();
+            if (!iterator.hasNext()) return;
+
+            S instance = iterator.next();
+            into.add(instance);
+            StartupProfiler.record("service", instance.getClass().getSimpleName() + " construct", start, System.nanoTime() - start);
+        }
+    }
+
+    private static Map<Service, List<Service>> resolveDependencies(List<Service> services) {
+        Map<Service, List<Service>> dependencies = Maps.newIdentityHashMap();
+
+        for (Service service : services) {
+            List<Service> resolved = Lists.newArrayList();
+            DependsOn dependsOn = service.getClass().getAnnotation(DependsOn.class);
+
+            if (dependsOn != null) {
+                for (Class<? extends Service> type : dependsOn.value()) {
+                    Service dependency = services.stream().filter(type::isInstance).findFirst().orElseThrow(() -> new IllegalStateException(
+                            service.getClass().getSimpleName() + " depends on " + type.getSimpleName() + ", which is not a registered service"));
+                    resolved.add(dependency);
+                }
+            }
+
+            dependencies.put(service, resolved);
+        }
+
+        return dependencies;
+    }
+
+    /**
+     * Topologically sort the services, keeping discovery order between independent ones.
+     */
+    private static List<Service> sort(List<Service> services, Map<Service, List<Service>> dependencies) {
+        List<Service> sorted = Lists.newArrayList();
+        List<Service> remaining = Lists.newArrayList(services);
+
+        while (!remaining.isEmpty()) {
+            Service next = remaining.stream().filter(service -> sorted.containsAll(dependencies.get(service))).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Cyclic service dependencies between " + remaining.stream()
+                            .map(service -> service.getClass().getSimpleName()).toList()));
+
+            sorted.add(next);
+            remaining.remove(next);
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Call {@link Service#onLoad()} on every service, returning once all of them are loaded.
+     * Must be called from the server thread, which runs the services that aren't thread-safe.
+     *
+     * @throws RuntimeException The first failure of a service, after all others finished.
+     */
+    public void load() {
+        int workerCount = (int) services.stream().filter(ServiceRegistry::isThreadSafe).count();
+        ExecutorService workers = workerCount == 0 ? null : Executors.newFixedThreadPool(Math.min(workerCount, Runtime.getRuntime().availableProcessors()),
+                new ThreadFactoryBuilder().setNameFormat("Stickers Service Loader #%d").setDaemon(true).build());
+        BlockingQueue<Runnable> serverThread = new LinkedBlockingQueue<>();
+        Map<Service, CompletableFuture<Void>> loaded = Maps.newIdentityHashMap();
+
+        for (Service service : services) {
+            CompletableFuture<?>[] loadedDependencies = dependencies.get(service).stream().map(loaded::get).toArray(CompletableFuture[]::new);
+            Executor executor = isThreadSafe(service) ? workers : serverThread::add;
+
+            loaded.put(service, CompletableFuture.allOf(loadedDependencies)
+                    .thenRunAsync(() -> run(service, "load", Service::onLoad), executor));
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(loaded.values().toArray(CompletableFuture[]::new));
+
+        try {
+            while (!all.isDone()) {
+                Runnable task = serverThread.poll(10, TimeUnit.MILLISECONDS);
+                if (task != null) task.run();
+            }
+
+            all.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading services", e);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        } finally {
+            if (workers != null) workers.shutdown();
+        }
+    }
+
+    /**
+     * Register every listener with the plugin manager.
+     *
+     * @param plugin The plugin owning the listeners.
+     */
+    public void registerListeners(@NotNull Plugin plugin) {
+        listeners.forEach(listener -> plugin.getServer().getPluginManager().registerEvents(listener, plugin));
+    }
+
+    /**
+     * Call {@link Service#onEnable()} on every service.
+     */
+    public void enable() {
+        services.forEach(service -> run(service, "enable", Service::onEnable));
+    }
+
+    /**
+     * Call {@link Service#onDisable()} on every service in reverse dependency order. A failing or
+     * slow service is reported and skipped so the remaining services still get to shut down.
+     */
+    public void disable() {
+        for (Service service : Lists.reverse(services)) {
+            String name = service.getClass().getSimpleName();
+            ServiceOptions options = service.getClass().getAnnotation(ServiceOptions.class);
+            int timeout = options == null ? 10 : options.shutdownTimeout();
+
+            try {
+                if (isThreadSafe(service)) {
+                    FutureTask<Void> task = new FutureTask<>(service::onDisable, null);
+                    Thread.ofPlatform().daemon().name("Stickers Shutdown - " + name).start(task);
+
+                    try {
+                        task.get(timeout, TimeUnit.SECONDS);
+                    } catch (TimeoutException e) {
+                        task.cancel(true);
+                        logger.warning(name + " did not shut down within " + timeout + "s, moving on");
+                    }
+
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                service.onDisable();
+
+                long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+                if (elapsed >= timeout) logger.warning(name + " took " + elapsed + "s to shut down, over its " + timeout + "s timeout");
+            } catch (ExecutionException e) {
+                logger.log(Level.SEVERE, "Could not disable " + name, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warning("Interrupted while disabling " + name);
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "Could not disable " + name, e);
+            }
+        }
+    }
+
+    private static void run(Service service, String phase, Consumer<Service> action) {
+        StartupProfiler.time("service", service.getClass().getSimpleName() + " " + phase, () -> action.accept(service));
+    }
+
+    private static boolean isThreadSafe(Service service) {
+        ServiceOptions options = service.getClass().getAnnotation(ServiceOptions.class);
+        return options != null && options.threadSafe();
+    }
+
+    /**
+     * @return The services, in dependency order.
+     */
+    public @NotNull List<Service> getServices() {
+        return services;
+    }
+
+    public @NotNull List<Listener> getListeners() {
+        return listeners;
+    }
+
+}
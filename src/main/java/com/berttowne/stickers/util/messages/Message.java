@@ -0,0 +1,54 @@
+package com.berttowne.stickers.util.messages;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Every message shown to players, with its default MiniMessage template and the names of its
+ * placeholders. Templates can be changed under {@code messages.<key>} in the config, where the
+ * key is the constant name in lower case with dashes.
+ */
+public enum Message {
+
+    STICKER_NOT_FOUND("<red>Sticker not found!"),
+    NO_PERMISSION("<red>You do not have permission to place this sticker!"),
+    NO_SURFACE("<red>You must be looking at a surface!"),
+    COOLDOWN("<red>You cannot place another sticker for <white><remaining>", "remaining"),
+    PACK_AUTO("<green>Your resource pack will be picked for your client version."),
+    PACK_SWITCHED("<green>Switched to the <variant> resource pack.", "variant"),
+    PACK_NOT_FOUND("<red>Resource pack not found!"),
+    STATS_HEADER("<yellow>Sticker stats:"),
+    TIMINGS_HEADER("<yellow>Slowest scheduler tasks:"),
+    TIMINGS_EMPTY("<gray>No named tasks have run yet."),
+    CONFIG_RELOADED("<green>Reloaded the Stickers config, changed: <white><changes>", "changes"),
+    CONFIG_UNCHANGED("<yellow>The Stickers config has not changed."),
+    CONFIG_INVALID("<red>The Stickers config was not reloaded: <white><error>", "error");
+
+    private final String key;
+    private final String defaultTemplate;
+    private final List<String> placeholders;
+
+    Message(String defaultTemplate, String... placeholders) {
+        this.key = name().toLowerCase(Locale.ROOT).replace('_', '-');
+        this.defaultTemplate = defaultTemplate;
+        this.placeholders = List.of(placeholders);
+    }
+
+    public @NotNull String getKey() {
+        return key;
+    }
+
+    public @NotNull String getDefaultTemplate() {
+        return defaultTemplate;
+    }
+
+    /**
+     * @return The placeholder names, in the order their values are passed when rendering.
+     */
+    public @NotNull List<String> getPlaceholders() {
+        return placeholders;
+    }
+
+}
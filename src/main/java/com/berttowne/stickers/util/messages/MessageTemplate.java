@@ -0,0 +1,117 @@
+package com.berttowne.stickers.util.messages;
+
+import com.berttowne.stickers.util.ComponentCache;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.ComponentLike;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.Tag;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * A MiniMessage template parsed once. Each placeholder tag is parsed into a marker component,
+ * and rendering swaps the markers for the values by walking the parsed tree, so filling in a
+ * template never parses MiniMessage again. Placeholders take the style of the text around
+ * them. Placeholders inside hover text are not filled.
+ */
+public final class MessageTemplate {
+
+    /**
+     * Markers are Unicode noncharacters, which never appear in real text or sticker glyphs.
+     */
+    private static final char MARKER_BASE = '\uFDD0';
+    private static final int MAX_PLACEHOLDERS = 32;
+
+    /**
+     * Parses templates without compacting them, which would merge a marker into the text next to
+     * it when both have the same style.
+     */
+    private static final MiniMessage PARSER = MiniMessage.builder().postProcessor(UnaryOperator.identity()).build();
+
+    private final Component component;
+    private final int placeholderCount;
+
+    private MessageTemplate(Component component, int placeholderCount) {
+        this.component = component;
+        this.placeholderCount = placeholderCount;
+    }
+
+    /**
+     * @param template     The MiniMessage template.
+     * @param placeholders The placeholder tag names, in the order values are passed to {@link #render}.
+     * @return The compiled template.
+     */
+    public static @NotNull MessageTemplate compile(@NotNull String template, @NotNull List<String> placeholders) {
+        if (placeholders.isEmpty()) return new MessageTemplate(ComponentCache.deserialize(template), 0);
+        if (placeholders.size() > MAX_PLACEHOLDERS) throw new IllegalArgumentException("Too many placeholders: " + placeholders);
+
+        TagResolver.Builder resolvers = TagResolver.builder();
+        for (int i = 0; i < placeholders.size(); i++) {
+            resolvers.tag(placeholders.get(i), Tag.selfClosingInserting(Component.text(String.valueOf((char) (MARKER_BASE + i)))));
+        }
+
+        return new MessageTemplate(PARSER.deserialize(template, resolvers.build()), placeholders.size());
+    }
+
+    /**
+     * @return The message, for templates without placeholders.
+     * @throws IllegalStateException If the template has placeholders.
+     */
+    public @NotNull Component render() {
+        if (placeholderCount > 0) throw new IllegalStateException("Expected " + placeholderCount + " placeholder values, got none");
+
+        return component;
+    }
+
+    /**
+     * @param values The placeholder values, in declaration order.
+     * @return The message with the values filled in.
+     */
+    public @NotNull Component render(@NotNull ComponentLike... values) {
+        if (values.length != placeholderCount) {
+            throw new IllegalArgumentException("Expected " + placeholderCount + " placeholder values, got " + values.length);
+        }
+
+        return placeholderCount == 0 ? component : fill(component, values);
+    }
+
+    /**
+     * @param values The placeholder values as plain (unparsed) text, in declaration order.
+     * @return The message with the values filled in.
+     */
+    public @NotNull Component render(@NotNull String... values) {
+        ComponentLike[] components = new ComponentLike[values.length];
+        for (int i = 0; i < values.length; i++) {
+            components[i] = Component.text(values[i]);
+        }
+
+        return render(components);
+    }
+
+    private static Component fill(Component component, ComponentLike[] values) {
+        if (component instanceof TextComponent text && text.content().length() == 1) {
+            int index = text.content().charAt(0) - MARKER_BASE;
+            if (index >= 0 && index < values.length) {
+                return values[index].asComponent().applyFallbackStyle(text.style());
+            }
+        }
+
+        List<Component> children = component.children();
+        List<Component> filled = null;
+        for (int i = 0; i < children.size(); i++) {
+            Component child = children.get(i);
+            Component replaced = fill(child, values);
+
+            if (replaced != child && filled == null) filled = new ArrayList<>(children.subList(0, i));
+            if (filled != null) filled.add(replaced);
+        }
+
+        return filled == null ? component : component.children(filled);
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.berttowne.stickers.util.messages;
+
+import com.berttowne.stickers.util.config.ConfigService;
+import com.berttowne.stickers.util.injection.DependsOn;
+import com.berttowne.stickers.util.injection.Service;
+import com.berttowne.stickers.util.injection.ServiceOptions;
+import com.google.auto.service.AutoService;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The compiled {@link MessageTemplate} of every {@link Message}, read from the {@code messages}
+ * section of the config. Messages missing from the config use their default template. Templates
+ * are recompiled when a config reload changes them, swapping all of them at once so a message is
+ * never rendered from a half-loaded catalog.
+ */
+@Singleton
+@AutoService(Service.class)
+@ServiceOptions(threadSafe = true)
+@DependsOn(ConfigService.class)
+public class Messages implements Service {
+
+    @Inject private ConfigService config;
+
+    private volatile Map<Message, MessageTemplate> templates = compile(null);
+
+    @Override
+    public void onLoad() {
+        this.templates = compile(config.get().messages());
+
+        config.addListener((previous, current, changed) -> {
+            if (!previous.messages().equals(current.messages())) this.templates = compile(current.messages());
+        });
+    }
+
+    private static Map<Message, MessageTemplate> compile(@Nullable Map<String, String> configured) {
+        Map<Message, MessageTemplate> templates = new EnumMap<>(Message.class);
+
+        for (Message message : Message.values()) {
+            String template = configured == null ? null : configured.get(message.getKey());
+            templates.put(message, MessageTemplate.compile(template == null ? message.getDefaultTemplate() : template, message.getPlaceholders()));
+        }
+
+        return templates;
+    }
+
+    /**
+     * @param message The message.
+     * @return Its compiled template.
+     */
+    public @NotNull MessageTemplate getTemplate(@NotNull Message message) {
+        return templates.get(message);
+    }
+
+    /**
+     * @param message A message without placeholders.
+     * @return The message.
+     */
+    public @NotNull Component get(@NotNull Message message) {
+        return getTemplate(message).render();
+    }
+
+    /**
+     * @param message The message.
+     * @param values  The placeholder values as plain text, in the order of {@link Message#getPlaceholders()}.
+     * @return The message with the values filled in.
+     */
+    public @NotNull Component get(@NotNull Message message, @NotNull String... values) {
+        return getTemplate(message).render(values);
+    }
+
+}
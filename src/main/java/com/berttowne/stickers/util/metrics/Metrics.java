@@ -0,0 +1,261 @@
+package com.berttowne.stickers.util.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of the plugin's runtime metrics: counters, gauges and latency histograms.
+ * <p>
+ * Metrics are created once, usually as static fields, and are cheap enough to update on hot
+ * paths: counters and histogram buckets are {@link LongAdder}s, so concurrent updates never
+ * contend on a lock, and gauges are only computed when they are read.
+ */
+public final class Metrics {
+
+    /**
+     * Default histogram bucket upper bounds, from 50µs to 1s.
+     */
+    private static final long[] LATENCY_BUCKETS = {
+            micros(50), micros(100), micros(250), micros(500),
+            micros(1_000), micros(2_500), micros(5_000), micros(10_000),
+            micros(25_000), micros(50_000), micros(100_000), micros(250_000),
+            micros(500_000), micros(1_000_000)
+    };
+
+    private static final Map<String, Metric> METRICS = new ConcurrentSkipListMap<>();
+
+    private Metrics() { }
+
+    /**
+     * @param name The metric name, in Prometheus style (e.g. {@code stickers_placed_total}).
+     * @param help What is counted.
+     * @return The counter with that name, created if needed.
+     */
+    public static @NotNull Counter counter(@NotNull String name, @NotNull String help) {
+        return (Counter) METRICS.computeIfAbsent(name, key -> new Counter(key, help));
+    }
+
+    /**
+     * @param name  The metric name.
+     * @param help  What is measured.
+     * @param value Computes the current value when the gauge is read.
+     * @return The gauge with that name, created if needed.
+     */
+    public static @NotNull Gauge gauge(@NotNull String name, @NotNull String help, @NotNull DoubleSupplier value) {
+        return (Gauge) METRICS.computeIfAbsent(name, key -> new Gauge(key, help, value));
+    }
+
+    /**
+     * @param name The metric name, which should end in {@code _seconds}.
+     * @param help What is timed.
+     * @return The latency histogram with that name, created if needed.
+     */
+    public static @NotNull Histogram histogram(@NotNull String name, @NotNull String help) {
+        return (Histogram) METRICS.computeIfAbsent(name, key -> new Histogram(key, help, LATENCY_BUCKETS));
+    }
+
+    /**
+     * @return Every metric, sorted by name.
+     */
+    public static @NotNull Collection<Metric> getMetrics() {
+        return Collections.unmodifiableCollection(METRICS.values());
+    }
+
+    /**
+     * Write every metric in the Prometheus text exposition format.
+     *
+     * @param out Where to write the metrics.
+     * @throws IOException If writing fails.
+     */
+    public static void writePrometheus(@NotNull Appendable out) throws IOException {
+        for (Metric metric : METRICS.values()) {
+            out.append("# HELP ").append(metric.getName()).append(' ').append(metric.getHelp()).append('\n');
+            out.append("# TYPE ").append(metric.getName()).append(' ').append(metric.getType()).append('\n');
+            metric.writeSamples(out);
+        }
+    }
+
+    private static long micros(long micros) {
+        return TimeUnit.MICROSECONDS.toNanos(micros);
+    }
+
+    private static String formatSeconds(long nanos) {
+        return Double.toString(nanos / 1_000_000_000.0);
+    }
+
+    public abstract static sealed class Metric permits Counter, Gauge, Histogram {
+
+        private final String name;
+        private final String help;
+
+        private Metric(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        public @NotNull String getName() {
+            return name;
+        }
+
+        public @NotNull String getHelp() {
+            return help;
+        }
+
+        abstract String getType();
+
+        abstract void writeSamples(Appendable out) throws IOException;
+
+    }
+
+    public static final class Counter extends Metric {
+
+        private final LongAdder count = new LongAdder();
+
+        private Counter(String name, String help) {
+            super(name, help);
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public long get() {
+            return count.sum();
+        }
+
+        @Override
+        String getType() {
+            return "counter";
+        }
+
+        @Override
+        void writeSamples(Appendable out) throws IOException {
+            out.append(getName()).append(' ').append(Long.toString(get())).append('\n');
+        }
+
+    }
+
+    public static final class Gauge extends Metric {
+
+        private final DoubleSupplier value;
+
+        private Gauge(String name, String help, DoubleSupplier value) {
+            super(name, help);
+            this.value = value;
+        }
+
+        public double get() {
+            return value.getAsDouble();
+        }
+
+        @Override
+        String getType() {
+            return "gauge";
+        }
+
+        @Override
+        void writeSamples(Appendable out) throws IOException {
+            out.append(getName()).append(' ').append(Double.toString(get())).append('\n');
+        }
+
+    }
+
+    /**
+     * A latency histogram with fixed buckets. Recording is a short scan over the bucket bounds
+     * plus three {@link LongAdder} updates.
+     */
+    public static final class Histogram extends Metric {
+
+        private final long[] bounds;
+        private final LongAdder[] buckets;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+
+        private Histogram(String name, String help, long[] bounds) {
+            super(name, help);
+            this.bounds = bounds;
+            this.buckets = new LongAdder[bounds.length + 1]; // Last bucket is +Inf
+
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * @param nanos The duration to record.
+         */
+        public void record(long nanos) {
+            int bucket = 0;
+            while (bucket < bounds.length && nanos > bounds[bucket]) bucket++;
+
+            buckets[bucket].increment();
+            count.increment();
+            sumNanos.add(nanos);
+        }
+
+        /**
+         * Record the time passed since a {@link System#nanoTime()} reading.
+         *
+         * @param startNanos The reading taken when the timed work started.
+         */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getMeanMillis() {
+            long count = getCount();
+            return count == 0 ? 0 : sumNanos.sum() / 1_000_000.0 / count;
+        }
+
+        /**
+         * @param quantile The quantile, between 0 and 1.
+         * @return The upper bound of the bucket the quantile falls in, in milliseconds, or
+         * {@link Double#POSITIVE_INFINITY} if it is past the last bound.
+         */
+        public double getQuantileMillis(double quantile) {
+            long count = getCount();
+            if (count == 0) return 0;
+
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= rank) return bounds[i] / 1_000_000.0;
+            }
+
+            return Double.POSITIVE_INFINITY;
+        }
+
+        @Override
+        String getType() {
+            return "histogram";
+        }
+
+        @Override
+        void writeSamples(Appendable out) throws IOException {
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                String bound = i < bounds.length ? formatSeconds(bounds[i]) : "+Inf";
+                out.append(getName()).append("_bucket{le=\"").append(bound).append("\"} ").append(Long.toString(cumulative)).append('\n');
+            }
+
+            out.append(getName()).append("_sum ").append(formatSeconds(sumNanos.sum())).append('\n');
+            out.append(getName()).append("_count ").append(Long.toString(cumulative)).append('\n');
+        }
+
+    }
+
+}
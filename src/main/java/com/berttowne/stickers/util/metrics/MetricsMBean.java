@@ -0,0 +1,90 @@
+package com.berttowne.stickers.util.metrics;
+
+import com.google.common.collect.Maps;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Exposes every {@link Metrics} metric as a read-only JMX attribute. Histograms are exposed as
+ * their count, mean and 50th/99th percentile in milliseconds.
+ */
+public class MetricsMBean implements DynamicMBean {
+
+    private Map<String, Supplier<Object>> attributes() {
+        Map<String, Supplier<Object>> attributes = Maps.newLinkedHashMap();
+
+        for (Metrics.Metric metric : Metrics.getMetrics()) {
+            if (metric instanceof Metrics.Counter counter) {
+                attributes.put(counter.getName(), counter::get);
+            } else if (metric instanceof Metrics.Gauge gauge) {
+                attributes.put(gauge.getName(), gauge::get);
+            } else if (metric instanceof Metrics.Histogram histogram) {
+                attributes.put(histogram.getName() + "_count", histogram::getCount);
+                attributes.put(histogram.getName() + "_mean_ms", histogram::getMeanMillis);
+                attributes.put(histogram.getName() + "_p50_ms", () -> histogram.getQuantileMillis(0.5));
+                attributes.put(histogram.getName() + "_p99_ms", () -> histogram.getQuantileMillis(0.99));
+            }
+        }
+
+        return attributes;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Supplier<Object> value = attributes().get(attribute);
+        if (value == null) throw new AttributeNotFoundException(attribute);
+
+        return value.get();
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only");
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        Map<String, Supplier<Object>> attributes = attributes();
+        AttributeList list = new AttributeList();
+
+        for (String name : names) {
+            Supplier<Object> value = attributes.get(name);
+            if (value != null) list.add(new Attribute(name, value.get()));
+        }
+
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException, ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        MBeanAttributeInfo[] infos = attributes().entrySet().stream()
+                .map(entry -> {
+                    String type = entry.getValue().get() instanceof Long ? Long.class.getName() : Double.class.getName();
+                    return new MBeanAttributeInfo(entry.getKey(), type, entry.getKey(), true, false, false);
+                })
+                .toArray(MBeanAttributeInfo[]::new);
+
+        return new MBeanInfo(getClass().getName(), "Stickers metrics", infos, null, new MBeanOperationInfo[0], null);
+    }
+
+}
@@ -0,0 +1,179 @@
+package com.berttowne.stickers.util.metrics;
+
+import com.berttowne.stickers.util.Scheduler;
+import com.berttowne.stickers.util.config.ConfigService;
+import com.berttowne.stickers.util.config.StickersConfig;
+import com.berttowne.stickers.util.injection.DependsOn;
+import com.berttowne.stickers.util.injection.Service;
+import com.berttowne.stickers.util.injection.ServiceOptions;
+import com.google.auto.service.AutoService;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Publishes the {@link Metrics}: as JMX attributes under {@code com.berttowne.stickers:type=Metrics},
+ * as a Prometheus text file in the data folder rewritten every {@code metrics.write-interval}
+ * seconds, and as the lines shown by {@code /stickers stats}. Also applies the {@link TaskTimings}
+ * budgets and formats them for {@code /stickers timings}. Config reloads move or reschedule the
+ * file right away.
+ */
+@Singleton
+@AutoService(Service.class)
+@ServiceOptions(threadSafe = true)
+@DependsOn(ConfigService.class)
+public class MetricsService implements Service {
+
+    private static final long RATE_SAMPLE_SECONDS = 5;
+
+    @Inject private Plugin plugin;
+    @Inject private ConfigService config;
+
+    private final List<ScheduledTask> tasks = Lists.newArrayList();
+
+    private ObjectName objectName;
+    private ScheduledTask writeTask;
+    private volatile double frameUpdatesPerSecond;
+    private long lastFrameUpdates;
+
+    @Override
+    public void onEnable() {
+        Metrics.gauge("stickers_scheduler_conditional_tasks", "Scheduler tasks waiting for their cancel condition", Scheduler::getConditionalTaskCount);
+        Metrics.gauge("stickers_io_tasks", "Blocking I/O tasks currently running on virtual threads", Scheduler::getIoTaskCount);
+        Metrics.gauge("stickers_frame_updates_per_second", "Frame updates per second over the last " + RATE_SAMPLE_SECONDS + " seconds", () -> frameUpdatesPerSecond);
+
+        Metrics.Counter frameUpdates = Metrics.counter("stickers_frame_updates_total", "Animated sticker frame changes pushed to holograms");
+        tasks.add(Scheduler.repeatAsync(Scheduler.timed("metrics rates", () -> {
+            long total = frameUpdates.get();
+            frameUpdatesPerSecond = (total - lastFrameUpdates) / (double) RATE_SAMPLE_SECONDS;
+            lastFrameUpdates = total;
+        }, RATE_SAMPLE_SECONDS, TimeUnit.SECONDS), RATE_SAMPLE_SECONDS, RATE_SAMPLE_SECONDS, TimeUnit.SECONDS));
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            this.objectName = new ObjectName("com.berttowne.stickers:type=Metrics");
+            if (!server.isRegistered(objectName)) server.registerMBean(new MetricsMBean(), objectName);
+        } catch (JMException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not register the metrics MBean", e);
+        }
+
+        scheduleWrites(config.get().metrics());
+        configureTimings(config.get().timings());
+        config.addListener((previous, current, changed) -> {
+            if (!previous.metrics().equals(current.metrics())) scheduleWrites(current.metrics());
+            if (!previous.timings().equals(current.timings())) configureTimings(current.timings());
+        });
+    }
+
+    private void configureTimings(@NotNull StickersConfig.Timings timings) {
+        TaskTimings.configure(plugin.getLogger(), timings.budget(), timings.driftTolerance(), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void scheduleWrites(@NotNull StickersConfig.Metrics metrics) {
+        if (writeTask != null) writeTask.cancel();
+
+        long interval = metrics.writeInterval();
+        this.writeTask = interval > 0
+                ? Scheduler.repeatAsync(Scheduler.timed("metrics write", this::writePrometheus, interval, TimeUnit.SECONDS), interval, interval, TimeUnit.SECONDS)
+                : null;
+    }
+
+    @Override
+    public void onDisable() {
+        tasks.forEach(ScheduledTask::cancel);
+        tasks.clear();
+        synchronized (this) {
+            if (writeTask != null) writeTask.cancel();
+            writeTask = null;
+        }
+
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException ignored) {
+            }
+        }
+
+        if (config.get().metrics().writeInterval() > 0) writePrometheus();
+    }
+
+    /**
+     * Write every metric to the Prometheus text file, replacing it atomically so scrapers never
+     * read a partial file.
+     */
+    public void writePrometheus() {
+        Path file = plugin.getDataFolder().toPath().resolve(config.get().metrics().file());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                Metrics.writePrometheus(writer);
+            }
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not write " + file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return One MiniMessage line per metric, as shown by {@code /stickers stats}.
+     */
+    public @NotNull List<String> getSummary() {
+        List<String> lines = Lists.newArrayList();
+
+        for (Metrics.Metric metric : Metrics.getMetrics()) {
+            String value;
+            if (metric instanceof Metrics.Histogram histogram) {
+                value = String.format(Locale.ROOT, "%d, mean %.2fms, p50 ≤%.2fms, p99 ≤%.2fms", histogram.getCount(),
+                        histogram.getMeanMillis(), histogram.getQuantileMillis(0.5), histogram.getQuantileMillis(0.99));
+            } else if (metric instanceof Metrics.Gauge gauge) {
+                value = String.format(Locale.ROOT, "%.2f", gauge.get());
+            } else {
+                value = String.valueOf(((Metrics.Counter) metric).get());
+            }
+
+            lines.add("<gray>" + metric.getName() + ": <white>" + value);
+        }
+
+        return lines;
+    }
+
+    /**
+     * @param limit The most tasks to list.
+     * @return One MiniMessage line per named task, the one with the most total time first, as
+     * shown by {@code /stickers timings}.
+     */
+    public @NotNull List<String> getTimings(int limit) {
+        List<String> lines = Lists.newArrayList();
+
+        for (TaskTimings.Timing timing : TaskTimings.getTimings()) {
+            if (lines.size() == limit) break;
+
+            lines.add(String.format(Locale.ROOT, "<gray>%s: <white>%d runs, %.2fms total, mean %.3fms, max %.2fms, %d over budget, %d late",
+                    timing.getName(), timing.getRuns(), timing.getTotalMillis(), timing.getMeanMillis(), timing.getMaxMillis(),
+                    timing.getOverruns(), timing.getLateRuns()));
+        }
+
+        return lines;
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.berttowne.stickers.util.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Records how long each step of plugin startup takes: module discovery and injector creation,
+ * every service's lifecycle phases, and catalog and resource pack loading.
+ * <p>
+ * Steps may be recorded from any thread until {@link #finish()}. The recorded steps are
+ * available as {@link Step}s and as a report sorted by duration, printed when the plugin finishes
+ * enabling. Afterwards recording does nothing, so code shared with runtime paths, such as
+ * catalog rebuilds and pack reloads, can stay timed without the steps piling up. Background
+ * work still running at that point, such as hashing packs on I/O threads, is left out; the
+ * report says how many steps that was.
+ */
+public final class StartupProfiler {
+
+    private static final List<Step> STEPS = new CopyOnWriteArrayList<>();
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+
+    /**
+     * Handed out once startup finished, closing it records nothing.
+     */
+    private static final Section FINISHED = new Section("", "", 0);
+
+    private static volatile long startedAt = System.nanoTime();
+    private static volatile long finishedAt;
+
+    private StartupProfiler() { }
+
+    /**
+     * Forget all steps and start timing a new startup.
+     */
+    public static void begin() {
+        STEPS.clear();
+        RUNNING.set(0);
+        startedAt = System.nanoTime();
+        finishedAt = 0;
+    }
+
+    /**
+     * Mark the end of startup. Steps recorded afterwards, such as background work that outlives
+     * enabling, are ignored until the next {@link #begin()}.
+     */
+    public static void finish() {
+        finishedAt = System.nanoTime();
+    }
+
+    /**
+     * Start timing a step, recorded when the returned {@link Section} is closed.
+     *
+     * @param category The area the step belongs to, e.g. {@code injector} or {@code service}.
+     * @param name     The step.
+     * @return The section to close when the step is done.
+     */
+    public static @NotNull Section start(@NotNull String category, @NotNull String name) {
+        if (finishedAt != 0) return FINISHED;
+
+        RUNNING.incrementAndGet();
+        return new Section(category, name, System.nanoTime());
+    }
+
+    /**
+     * Time a step.
+     *
+     * @param category The area the step belongs to.
+     * @param name     The step.
+     * @param step     The step to run.
+     * @return The result of the step.
+     */
+    public static <T> T time(@NotNull String category, @NotNull String name, @NotNull Supplier<T> step) {
+        try (Section ignored = start(category, name)) {
+            return step.get();
+        }
+    }
+
+    /**
+     * Time a step.
+     *
+     * @param category The area the step belongs to.
+     * @param name     The step.
+     * @param step     The step to run.
+     */
+    public static void time(@NotNull String category, @NotNull String name, @NotNull Runnable step) {
+        try (Section ignored = start(category, name)) {
+            step.run();
+        }
+    }
+
+    private static void record(@NotNull String category, @NotNull String name, long start, long nanos) {
+        if (finishedAt != 0) return;
+
+        STEPS.add(new Step(category, name, start - startedAt, nanos, Thread.currentThread().getName()));
+    }
+
+    /**
+     * @return The recorded steps, in the order they finished.
+     */
+    public static @NotNull List<Step> getSteps() {
+        return List.copyOf(STEPS);
+    }
+
+    /**
+     * @return The time from {@link #begin()} to {@link #finish()}, or until now if startup is
+     * still running.
+     */
+    public static long getWallNanos() {
+        long finishedAt = StartupProfiler.finishedAt;
+        return (finishedAt == 0 ? System.nanoTime() : finishedAt) - startedAt;
+    }
+
+    /**
+     * @return A report of every step, slowest first, with its share of the startup wall time, and
+     * how many steps were still running and are left out.
+     */
+    public static @NotNull String report() {
+        List<Step> steps = getSteps().stream().sorted(Comparator.comparingLong(Step::nanos).reversed()).toList();
+        long wall = getWallNanos();
+
+        StringBuilder report = new StringBuilder(64 + steps.size() * 80)
+                .append("Startup took ").append(formatMillis(wall)).append(" (").append(steps.size()).append(" steps, slowest first):");
+
+        for (Step step : steps) {
+            report.append('\n')
+                    .append(String.format(Locale.ROOT, "%10s %5.1f%%  %-14s %s", formatMillis(step.nanos()), wall == 0 ? 0 : step.nanos() * 100.0 / wall, step.category(), step.name()))
+                    .append("  [").append(step.thread()).append(']');
+        }
+
+        int running = RUNNING.get();
+        if (running > 0) {
+            report.append('\n').append(running).append(running == 1 ? " step was" : " steps were")
+                    .append(" still running in the background and left out of this report");
+        }
+
+        return report.toString();
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * A recorded step.
+     *
+     * @param category    The area the step belongs to.
+     * @param name        The step.
+     * @param offsetNanos When the step started, relative to {@link #begin()}.
+     * @param nanos       How long the step took.
+     * @param thread      The thread that finished the step.
+     */
+    public record Step(String category, String name, long offsetNanos, long nanos, String thread) { }
+
+    /**
+     * A step being timed.
+     */
+    public static final class Section implements AutoCloseable {
+
+        private final String category;
+        private final String name;
+        private final long start;
+
+        private Section(String category, String name, long start) {
+            this.category = category;
+            this.name = name;
+            this.start = start;
+        }
+
+        @Override
+        public void close() {
+            if (this == FINISHED) return;
+
+            RUNNING.decrementAndGet();
+            record(category, name, start, System.nanoTime() - start);
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.berttowne.stickers.util.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events emitted around the sticker hot paths, so a recording taken during
+ * an incident can line sticker activity up with tick spikes.
+ * <p>
+ * Every event is disabled by default. While disabled, emitting one costs a single
+ * {@link Event#isEnabled()} check after the timed work, as callers only fill in the fields once
+ * {@link Event#shouldCommit()} returns true. Enable them for a recording by name, e.g.
+ * {@code com.berttowne.stickers.FrameUpdate#enabled=true} as a {@code JFR.start} option, or
+ * through a custom {@code .jfc} file. The elapsed time of each event is its JFR duration.
+ */
+public final class StickerEvents {
+
+    private static final String CATEGORY = "Stickers";
+
+    private StickerEvents() { }
+
+    /**
+     * Fields shared by the events about a single sticker.
+     */
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public abstract static class StickerEvent extends Event {
+
+        @Label("Sticker")
+        public String stickerName;
+
+        @Label("Frame Count")
+        public int frameCount;
+
+        @Label("Viewers")
+        @Description("Players the sticker's hologram is shown to")
+        public int viewers;
+
+    }
+
+    @Name("com.berttowne.stickers.Place")
+    @Label("Sticker Placement")
+    @Description("A player placing a sticker, including the checks that may reject it")
+    @Enabled(false)
+    public static final class Place extends StickerEvent {
+
+        @Label("Placed")
+        public boolean placed;
+
+    }
+
+    @Name("com.berttowne.stickers.HologramCreate")
+    @Label("Sticker Hologram Creation")
+    @Enabled(false)
+    public static final class HologramCreate extends StickerEvent { }
+
+    @Name("com.berttowne.stickers.HologramRemove")
+    @Label("Sticker Hologram Removal")
+    @Enabled(false)
+    public static final class HologramRemove extends StickerEvent { }
+
+    @Name("com.berttowne.stickers.FrameUpdate")
+    @Label("Sticker Frame Update")
+    @Description("An animated sticker pushing its next frame to its hologram")
+    @Enabled(false)
+    public static final class FrameUpdate extends StickerEvent {
+
+        @Label("Frame")
+        public int frame;
+
+    }
+
+    @Name("com.berttowne.stickers.CatalogParse")
+    @Label("Sticker Catalog Parse")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Enabled(false)
+    public static final class CatalogParse extends Event {
+
+        @Label("Stickers")
+        public int stickerCount;
+
+        @Label("Frame Count")
+        @Description("Frames across all stickers")
+        public int frameCount;
+
+    }
+
+    @Name("com.berttowne.stickers.PackHash")
+    @Label("Resource Pack Hash")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Enabled(false)
+    public static final class PackHash extends Event {
+
+        @Label("Pack")
+        public String packName;
+
+        @Label("URL")
+        public String url;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.berttowne.stickers.util.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Run counts and durations of named scheduler tasks, recorded by the tasks wrapped with
+ * {@code Scheduler.timed}. A run longer than the budget counts as an overrun, and a run of a
+ * repeating task that starts more than the drift tolerance after its period counts as late.
+ * Both are logged, at most once a minute per task name.
+ * <p>
+ * Recording a run costs two {@link System#nanoTime()} calls and a few uncontended adds, so tasks
+ * stay wrapped in production. The timing of a name is looked up once, when its task is wrapped.
+ */
+public final class TaskTimings {
+
+    private static final long WARNING_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final Metrics.Counter OVERRUNS = Metrics.counter("stickers_task_overruns_total", "Named scheduler task runs longer than their budget");
+    private static final Metrics.Counter LATE_RUNS = Metrics.counter("stickers_task_late_runs_total", "Named repeating task runs that started late");
+
+    private static final Map<String, Timing> TIMINGS = new ConcurrentHashMap<>();
+
+    private static volatile @Nullable Logger logger;
+    private static volatile long budgetNanos = TimeUnit.MILLISECONDS.toNanos(25);
+    private static volatile long driftToleranceNanos = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private TaskTimings() { }
+
+    /**
+     * Set where overruns are logged and what counts as one.
+     *
+     * @param logger         The logger warnings go to, or {@code null} to only count overruns.
+     * @param budget         The longest a run may take, 0 for no budget.
+     * @param driftTolerance How late a run of a repeating task may start.
+     * @param unit           The {@link TimeUnit} of the budget and tolerance.
+     */
+    public static void configure(@Nullable Logger logger, long budget, long driftTolerance, @NotNull TimeUnit unit) {
+        TaskTimings.logger = logger;
+        TaskTimings.budgetNanos = unit.toNanos(budget);
+        TaskTimings.driftToleranceNanos = unit.toNanos(driftTolerance);
+    }
+
+    /**
+     * @param name The task name.
+     * @return The timing of every task with the name, created on first use.
+     */
+    public static @NotNull Timing get(@NotNull String name) {
+        return TIMINGS.computeIfAbsent(name, Timing::new);
+    }
+
+    /**
+     * @return Every timing, the one with the most total time first.
+     */
+    public static @NotNull List<Timing> getTimings() {
+        return TIMINGS.values().stream().sorted(Comparator.comparingLong(Timing::getTotalNanos).reversed()).toList();
+    }
+
+    /**
+     * Forget every recorded run. Tasks that are already wrapped keep recording into their timing.
+     */
+    public static void reset() {
+        TIMINGS.values().forEach(Timing::reset);
+    }
+
+    /**
+     * The recorded runs of the tasks with one name.
+     */
+    public static final class Timing {
+
+        private final String name;
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder overruns = new LongAdder();
+        private final LongAdder lateRuns = new LongAdder();
+        private final AtomicLong lastWarning = new AtomicLong(System.nanoTime() - WARNING_INTERVAL_NANOS);
+
+        private Timing(@NotNull String name) {
+            this.name = name;
+        }
+
+        /**
+         * @param nanos How long a run took.
+         */
+        public void record(long nanos) {
+            runs.increment();
+            totalNanos.add(nanos);
+            if (nanos > maxNanos.get()) maxNanos.accumulateAndGet(nanos, Math::max);
+
+            long budget = budgetNanos;
+            if (budget > 0 && nanos > budget) {
+                overruns.increment();
+                OVERRUNS.increment();
+                Logger logger = warningLogger();
+                if (logger != null) logger.warning(String.format(Locale.ROOT, "Task %s took %.2fms, over its %.2fms budget (%d overruns)", name, millis(nanos), millis(budget), overruns.sum()));
+            }
+        }
+
+        /**
+         * @param intervalNanos The time since the previous run of the same task started.
+         * @param periodNanos   The time the task is scheduled to repeat after.
+         */
+        public void recordInterval(long intervalNanos, long periodNanos) {
+            long tolerance = driftToleranceNanos;
+            if (intervalNanos <= periodNanos + tolerance) return;
+
+            lateRuns.increment();
+            LATE_RUNS.increment();
+            Logger logger = warningLogger();
+            if (logger != null) logger.warning(String.format(Locale.ROOT, "Task %s started %.2fms late (%d late runs)", name, millis(intervalNanos - periodNanos), lateRuns.sum()));
+        }
+
+        /**
+         * Claim the warning of this task for the current minute, so the message is only
+         * formatted when it is logged.
+         *
+         * @return The logger to warn with, or {@code null} if there is none or this task already warned within the minute.
+         */
+        private @Nullable Logger warningLogger() {
+            Logger logger = TaskTimings.logger;
+            if (logger == null) return null;
+
+            long now = System.nanoTime();
+            long last = lastWarning.get();
+            if (now - last < WARNING_INTERVAL_NANOS || !lastWarning.compareAndSet(last, now)) return null;
+
+            return logger;
+        }
+
+        private void reset() {
+            runs.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+            overruns.reset();
+            lateRuns.reset();
+        }
+
+        public @NotNull String getName() {
+            return name;
+        }
+
+        public long getRuns() {
+            return runs.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public double getTotalMillis() {
+            return millis(getTotalNanos());
+        }
+
+        public double getMeanMillis() {
+            long runs = getRuns();
+            return runs == 0 ? 0 : millis(getTotalNanos()) / runs;
+        }
+
+        public double getMaxMillis() {
+            return millis(maxNanos.get());
+        }
+
+        /**
+         * @return The runs longer than the budget.
+         */
+        public long getOverruns() {
+            return overruns.sum();
+        }
+
+        /**
+         * @return The runs of repeating tasks that started later than the drift tolerance allows.
+         */
+        public long getLateRuns() {
+            return lateRuns.sum();
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+
+    }
+
+}
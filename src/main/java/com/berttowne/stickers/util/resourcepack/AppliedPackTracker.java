@@ -0,0 +1,199 @@
+package com.berttowne.stickers.util.resourcepack;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers which resource pack hash every player last loaded successfully, so the pack is
+ * only sent again when it actually changed.
+ * <p>
+ * Players are mapped to a small index into the list of known hashes instead of holding a
+ * hash each, and the table is persisted in a compact binary file so it survives restarts.
+ * Players who have not joined for longer than the retention are dropped when the table is
+ * loaded or saved, so it only holds recent players.
+ */
+public class AppliedPackTracker {
+
+    private static final int FORMAT = 2; // 1 had no last-seen times
+    private static final int HASH_BYTES = 20; // SHA-1
+
+    private final Path file;
+    private final long retentionMillis;
+    private final HexFormat hexFormat = HexFormat.of();
+
+    private final List<String> hashes = Lists.newCopyOnWriteArrayList();
+    private final Map<UUID, Entry> applied = new ConcurrentHashMap<>();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * @param file      The file the table is persisted in.
+     * @param retention How long a player is remembered after they were last seen.
+     */
+    public AppliedPackTracker(@NotNull Path file, @NotNull Duration retention) {
+        this.file = file;
+        this.retentionMillis = retention.toMillis();
+    }
+
+    /**
+     * @param player The UUID of the player.
+     * @return The hash of the pack the player last loaded successfully, or {@code null} if unknown.
+     */
+    public @Nullable String getApplied(@NotNull UUID player) {
+        Entry entry = applied.get(player);
+        return entry == null ? null : hashes.get(entry.hash());
+    }
+
+    /**
+     * @param player The UUID of the player.
+     * @param hash   The hash about to be sent.
+     * @return {@code true} if the player already loaded a pack with this hash, in which case
+     * they count as seen now.
+     */
+    public boolean hasApplied(@NotNull UUID player, @NotNull String hash) {
+        if (!hash.equalsIgnoreCase(String.valueOf(getApplied(player)))) return false;
+
+        applied.computeIfPresent(player, (key, entry) -> new Entry(entry.hash(), System.currentTimeMillis()));
+        return true;
+    }
+
+    /**
+     * Record that a player loaded a pack successfully.
+     *
+     * @param player The UUID of the player.
+     * @param hash   The hash of the loaded pack.
+     */
+    public void setApplied(@NotNull UUID player, @NotNull String hash) {
+        if (hash.length() != HASH_BYTES * 2 || !hash.chars().allMatch(HexFormat::isHexDigit)) return;
+
+        applied.put(player, new Entry(indexOf(hash.toLowerCase(Locale.ROOT)), System.currentTimeMillis()));
+    }
+
+    public void forget(@NotNull UUID player) {
+        applied.remove(player);
+    }
+
+    public void recordSent() {
+        sent.increment();
+    }
+
+    public void recordSkipped() {
+        skipped.increment();
+    }
+
+    /**
+     * @return The number of pack requests sent since startup.
+     */
+    public long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * @return The number of pack requests skipped because the player already had the pack.
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    private synchronized int indexOf(@NotNull String hash) {
+        int index = hashes.indexOf(hash);
+        if (index >= 0) return index;
+
+        hashes.add(hash);
+        return hashes.size() - 1;
+    }
+
+    /**
+     * Load the table persisted by {@link #save()}, if any.
+     *
+     * @throws IOException If the file exists but could not be read.
+     */
+    public synchronized void load() throws IOException {
+        if (!Files.exists(file)) return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int format = in.readInt();
+            if (format != FORMAT && format != 1) throw new IOException("Unknown format in " + file.getFileName());
+
+            List<String> loadedHashes = Lists.newArrayList();
+            int hashCount = in.readInt();
+            byte[] buffer = new byte[HASH_BYTES];
+            for (int i = 0; i < hashCount; i++) {
+                in.readFully(buffer);
+                loadedHashes.add(hexFormat.formatHex(buffer));
+            }
+
+            long cutoff = System.currentTimeMillis() - retentionMillis;
+            int playerCount = in.readInt();
+            for (int i = 0; i < playerCount; i++) {
+                UUID player = new UUID(in.readLong(), in.readLong());
+                int index = in.readUnsignedShort();
+                long lastSeen = format == 1 ? System.currentTimeMillis() : in.readLong();
+                if (index < loadedHashes.size() && lastSeen > cutoff) applied.put(player, new Entry(indexOf(loadedHashes.get(index)), lastSeen));
+            }
+        }
+    }
+
+    /**
+     * Persist the table, dropping players not seen within the retention and hashes no
+     * remaining player has applied.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    public synchronized void save() throws IOException {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        applied.values().removeIf(entry -> entry.lastSeen() <= cutoff);
+
+        List<String> live = Lists.newArrayList();
+        Map<UUID, Entry> snapshot = Map.copyOf(applied);
+        snapshot.values().stream().map(Entry::hash).distinct().sorted().forEach(index -> live.add(hashes.get(index)));
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(FORMAT);
+
+            out.writeInt(live.size());
+            for (String hash : live) {
+                out.write(hexFormat.parseHex(hash), 0, HASH_BYTES);
+            }
+
+            out.writeInt(snapshot.size());
+            for (Map.Entry<UUID, Entry> entry : snapshot.entrySet()) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                out.writeShort(live.indexOf(hashes.get(entry.getValue().hash())));
+                out.writeLong(entry.getValue().lastSeen());
+            }
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param hash     The index of the applied hash.
+     * @param lastSeen When the player last loaded or was found to have the pack, in epoch milliseconds.
+     */
+    private record Entry(int hash, long lastSeen) { }
+
+}
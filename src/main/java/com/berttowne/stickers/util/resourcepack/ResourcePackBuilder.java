@@ -0,0 +1,527 @@
+package com.berttowne.stickers.util.resourcepack;
+
+import com.berttowne.stickers.stickers.Sticker;
+import com.berttowne.stickers.util.config.ConfigService;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Builds the sticker resource pack from PNG (static) and GIF (animated) images in the data
+ * folder.
+ * <p>
+ * Every distinct frame becomes a glyph in the {@code minecraft:default} font, with private-use
+ * codepoints assigned automatically and kept stable across builds through a manifest. The
+ * frames of a sticker are packed side by side into a single bitmap provider, and a matching
+ * {@link Sticker} catalog entry is emitted for every image, including per-frame durations
+ * taken from the GIF delays.
+ * <p>
+ * Builds are incremental: images are identified by a hash of their content, unchanged images
+ * reuse their previously packed bitmap without being decoded, changed images are decoded in
+ * parallel on a fork-join pool, and the zip is only rewritten when something changed. The
+ * SHA-1 of the pack is computed while the zip is written, so it never has to be read back.
+ */
+@Singleton
+public class ResourcePackBuilder {
+
+    private static final Key FONT = Key.key("minecraft", "default");
+    private static final int PRIVATE_USE_END = 0xF8FF;
+    private static final FileTime ZIP_TIME = FileTime.fromMillis(315532800000L); // 1980-01-01, keeps the zip reproducible
+
+    /**
+     * Codepoints used by the glyphs hardcoded in {@link com.berttowne.stickers.stickers.StickerService}.
+     */
+    private static final int RESERVED_START = 0xEFF1;
+    private static final int RESERVED_END = 0xEFF4;
+
+    private final Plugin plugin;
+    private final ConfigService config;
+    private final Gson gson;
+    private final HexFormat hexFormat = HexFormat.of();
+
+    private volatile List<Sticker> generatedStickers = List.of();
+
+    @Inject
+    public ResourcePackBuilder(Plugin plugin, ConfigService config, Gson gson) {
+        this.plugin = plugin;
+        this.config = config;
+        this.gson = gson;
+    }
+
+    /**
+     * @return The catalog entries emitted by the last build, empty if the pack was never built.
+     */
+    public @NotNull List<Sticker> getGeneratedStickers() {
+        return generatedStickers;
+    }
+
+    /**
+     * Build the pack, skipping the work for images that did not change since the last build.
+     *
+     * @param sources     The folder containing the sticker images.
+     * @param output      The zip file to write.
+     * @param glyphHeight The height in pixels the glyphs are rendered at.
+     * @param ascent      The ascent of the glyphs, at most {@code glyphHeight}.
+     * @param packFormat  The pack format to declare in {@code pack.mcmeta}.
+     * @param parallelism The number of threads used to decode images.
+     * @return The result of the build.
+     * @throws IOException If an image or the pack could not be read or written.
+     */
+    public synchronized @NotNull Result build(@NotNull Path sources, @NotNull Path output, int glyphHeight, int ascent,
+                                              int packFormat, int parallelism) throws IOException {
+        long start = System.currentTimeMillis();
+        Path cacheFolder = plugin.getDataFolder().toPath().resolve("pack-cache");
+        Files.createDirectories(sources);
+        Files.createDirectories(cacheFolder);
+
+        Manifest previous = readManifest();
+        String settings = glyphHeight + ":" + ascent + ":" + packFormat;
+        Map<String, Entry> entries = Maps.newTreeMap();
+        List<Source> changed = Lists.newArrayList();
+        Set<String> slugs = Sets.newHashSet();
+
+        for (Path file : listSources(sources)) {
+            String fileName = file.getFileName().toString();
+            if (!slugs.add(slug(fileName))) {
+                plugin.getLogger().warning("Skipping sticker image " + fileName + ", another image already uses the name " + slug(fileName));
+                continue;
+            }
+
+            byte[] content = Files.readAllBytes(file);
+            String contentHash = hexFormat.formatHex(digest("SHA-256").digest(content));
+
+            Entry entry = previous.entries().get(fileName);
+            if (entry != null && entry.contentHash().equals(contentHash) && Files.exists(cacheFolder.resolve(entry.slug() + ".png"))) {
+                entries.put(fileName, entry);
+            } else {
+                changed.add(new Source(fileName, content, contentHash));
+            }
+        }
+
+        boolean removed = previous.entries().keySet().stream()
+                .anyMatch(fileName -> !entries.containsKey(fileName) && changed.stream().noneMatch(source -> source.fileName().equals(fileName)));
+        List<Decoded> decoded = decode(changed, parallelism);
+
+        // Keep the codepoints of images that still fit in their previous block, so placed glyphs stay valid
+        Set<Integer> used = Sets.newHashSet();
+        entries.values().forEach(entry -> entry.codepoints().forEach(used::add));
+
+        Map<Decoded, Integer> firstCodepoints = Maps.newIdentityHashMap();
+        for (Decoded image : decoded) {
+            Entry old = previous.entries().get(image.source().fileName());
+            if (old == null || old.glyphCount() < image.glyphCount() || !isFree(used, old.firstCodepoint(), image.glyphCount())) continue;
+
+            firstCodepoints.put(image, old.firstCodepoint());
+            IntStream.range(old.firstCodepoint(), old.firstCodepoint() + image.glyphCount()).forEach(used::add);
+        }
+
+        for (Decoded image : decoded) {
+            int glyphs = image.glyphCount();
+            Integer first = firstCodepoints.get(image);
+            if (first == null) first = allocate(used, glyphs);
+
+            Entry entry = new Entry(image.source().contentHash(), slug(image.source().fileName()), first, glyphs,
+                    image.width(), image.height(), image.frameGlyphs(), image.frameDurations());
+            entry.codepoints().forEach(used::add);
+            entries.put(image.source().fileName(), entry);
+
+            Files.write(cacheFolder.resolve(entry.slug() + ".png"), image.strip());
+        }
+
+        String packHash = previous.packHash();
+        if (packHash == null || !decoded.isEmpty() || removed || !settings.equals(previous.settings()) || !Files.exists(output)) {
+            packHash = writePack(output, cacheFolder, entries.values(), glyphHeight, ascent, packFormat);
+        }
+
+        writeManifest(new Manifest(packHash, settings, entries));
+        this.generatedStickers = entries.entrySet().stream()
+                .map(entry -> toSticker(entry.getKey(), entry.getValue()))
+                .toList();
+
+        plugin.getLogger().info("Built resource pack with " + entries.size() + " stickers (" + decoded.size() + " decoded) in "
+                + (System.currentTimeMillis() - start) + "ms");
+
+        return new Result(output, packHash, generatedStickers);
+    }
+
+    private @NotNull List<Path> listSources(@NotNull Path sources) throws IOException {
+        try (Stream<Path> files = Files.list(sources)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> {
+                        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                        return name.endsWith(".png") || name.endsWith(".gif");
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private @NotNull List<Decoded> decode(@NotNull List<Source> sources, int parallelism) throws IOException {
+        if (sources.isEmpty()) return List.of();
+
+        List<Callable<Decoded>> tasks = sources.stream().<Callable<Decoded>>map(source -> () -> decode(source)).toList();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+
+        try {
+            List<Decoded> decoded = Lists.newArrayListWithCapacity(tasks.size());
+            for (Future<Decoded> future : pool.invokeAll(tasks)) {
+                decoded.add(future.get());
+            }
+
+            return decoded;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while decoding sticker images", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private @NotNull Decoded decode(@NotNull Source source) throws IOException {
+        List<BufferedImage> frames = Lists.newArrayList();
+        List<Integer> durations = Lists.newArrayList();
+
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(source.content()))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) throw new IOException("Unsupported image " + source.fileName());
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, false);
+
+                if (reader.getFormatName().equalsIgnoreCase("gif")) {
+                    readGif(reader, frames, durations);
+                } else {
+                    frames.add(reader.read(0));
+                    durations.add(0);
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        if (frames.isEmpty()) throw new IOException("Image " + source.fileName() + " has no frames");
+
+        // Deduplicate identical frames so they share a glyph
+        int width = frames.get(0).getWidth();
+        int height = frames.get(0).getHeight();
+        Map<FramePixels, Integer> distinct = Maps.newLinkedHashMap();
+        List<BufferedImage> glyphs = Lists.newArrayList();
+        List<Integer> frameGlyphs = Lists.newArrayListWithCapacity(frames.size());
+
+        for (BufferedImage frame : frames) {
+            FramePixels pixels = new FramePixels(frame.getRGB(0, 0, width, height, null, 0, width));
+            frameGlyphs.add(distinct.computeIfAbsent(pixels, key -> {
+                glyphs.add(frame);
+                return glyphs.size() - 1;
+            }));
+        }
+
+        BufferedImage strip = new BufferedImage(width * glyphs.size(), height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = strip.createGraphics();
+        for (int i = 0; i < glyphs.size(); i++) {
+            graphics.drawImage(glyphs.get(i), i * width, 0, null);
+        }
+        graphics.dispose();
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(strip, "png", png);
+
+        return new Decoded(source, width, height, glyphs.size(), png.toByteArray(), frameGlyphs, durations);
+    }
+
+    /**
+     * Read every frame of a GIF, compositing partial frames onto the logical screen and
+     * honouring the disposal methods, and convert the frame delays to ticks.
+     */
+    private void readGif(@NotNull ImageReader reader, @NotNull List<BufferedImage> frames, @NotNull List<Integer> durations) throws IOException {
+        int count = reader.getNumImages(true);
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+
+        Node screen = child(reader.getStreamMetadata() == null ? null
+                : reader.getStreamMetadata().getAsTree("javax_imageio_gif_stream_1.0"), "LogicalScreenDescriptor");
+        if (screen != null) {
+            width = Math.max(width, intAttribute(screen, "logicalScreenWidth", width));
+            height = Math.max(height, intAttribute(screen, "logicalScreenHeight", height));
+        }
+
+        BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        for (int i = 0; i < count; i++) {
+            BufferedImage frame = reader.read(i);
+            IIOMetadata metadata = reader.getImageMetadata(i);
+            Node tree = metadata.getAsTree("javax_imageio_gif_image_1.0");
+            Node descriptor = child(tree, "ImageDescriptor");
+            Node control = child(tree, "GraphicControlExtension");
+
+            int x = descriptor == null ? 0 : intAttribute(descriptor, "imageLeftPosition", 0);
+            int y = descriptor == null ? 0 : intAttribute(descriptor, "imageTopPosition", 0);
+            int delay = control == null ? 0 : intAttribute(control, "delayTime", 0); // hundredths of a second
+            String disposal = control == null ? "none" : attribute(control, "disposalMethod", "none");
+
+            BufferedImage before = disposal.equals("restoreToPrevious") ? copy(canvas) : null;
+
+            Graphics2D graphics = canvas.createGraphics();
+            graphics.drawImage(frame, x, y, null);
+            graphics.dispose();
+
+            frames.add(copy(canvas));
+            durations.add(Math.max(1, Math.round((delay > 0 ? delay : 10) / 5f))); // 5 hundredths per tick
+
+            if (disposal.equals("restoreToBackgroundColor")) {
+                Graphics2D clear = canvas.createGraphics();
+                clear.setComposite(AlphaComposite.Clear);
+                clear.fillRect(x, y, frame.getWidth(), frame.getHeight());
+                clear.dispose();
+            } else if (before != null) {
+                canvas = before;
+            }
+        }
+    }
+
+    private @NotNull String writePack(@NotNull Path output, @NotNull Path cacheFolder, @NotNull Iterable<Entry> entries,
+                                      int glyphHeight, int ascent, int packFormat) throws IOException {
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        MessageDigest sha1 = digest("SHA-1");
+
+        JsonArray providers = new JsonArray();
+        try (OutputStream file = Files.newOutputStream(temp);
+             ZipOutputStream zip = new ZipOutputStream(new DigestOutputStream(file, sha1))) {
+
+            JsonObject pack = new JsonObject();
+            pack.addProperty("pack_format", packFormat);
+            pack.addProperty("min_format", packFormat);
+            pack.addProperty("max_format", packFormat);
+            pack.addProperty("description", plugin.getName() + " stickers");
+            JsonObject meta = new JsonObject();
+            meta.add("pack", pack);
+            writeEntry(zip, "pack.mcmeta", gson.toJson(meta).getBytes(StandardCharsets.UTF_8));
+
+            for (Entry entry : entries) {
+                String texture = "font/" + entry.slug() + ".png";
+                writeEntry(zip, "assets/stickers/textures/" + texture, Files.readAllBytes(cacheFolder.resolve(entry.slug() + ".png")));
+
+                StringBuilder chars = new StringBuilder();
+                entry.codepoints().forEach(chars::appendCodePoint);
+
+                JsonObject provider = new JsonObject();
+                provider.addProperty("type", "bitmap");
+                provider.addProperty("file", "stickers:" + texture);
+                provider.addProperty("height", glyphHeight);
+                provider.addProperty("ascent", Math.min(ascent, glyphHeight));
+                JsonArray rows = new JsonArray();
+                rows.add(chars.toString());
+                provider.add("chars", rows);
+                providers.add(provider);
+            }
+
+            JsonObject font = new JsonObject();
+            font.add("providers", providers);
+            writeEntry(zip, "assets/" + FONT.namespace() + "/font/" + FONT.value() + ".json", gson.toJson(font).getBytes(StandardCharsets.UTF_8));
+        }
+
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return hexFormat.formatHex(sha1.digest());
+    }
+
+    private static void writeEntry(@NotNull ZipOutputStream zip, @NotNull String name, byte @NotNull [] content) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setLastModifiedTime(ZIP_TIME);
+        zip.putNextEntry(entry);
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    private @NotNull Sticker toSticker(@NotNull String fileName, @NotNull Entry entry) {
+        List<Component> glyphs = entry.codepoints().stream()
+                .map(codepoint -> (Component) Component.text(new String(Character.toChars(codepoint))).font(FONT).color(NamedTextColor.WHITE))
+                .toList();
+
+        List<Component> frames = entry.frameGlyphs().stream().map(glyphs::get).toList();
+        String name = fileName.substring(0, fileName.lastIndexOf('.'));
+
+        return new Sticker(name, List.of(), frames, frames.size() > 1 ? entry.frameDurations() : null, 0, "stickers.use." + entry.slug());
+    }
+
+    private static boolean isFree(@NotNull Set<Integer> used, int first, int count) {
+        for (int codepoint = first; codepoint < first + count; codepoint++) {
+            if (used.contains(codepoint) || isReserved(codepoint) || codepoint > PRIVATE_USE_END) return false;
+        }
+
+        return true;
+    }
+
+    private int allocate(@NotNull Set<Integer> used, int count) {
+        int first = config.get().resourcePack().builder().firstCodepoint();
+
+        while (first + count - 1 <= PRIVATE_USE_END) {
+            if (isFree(used, first, count)) return first;
+            first++;
+        }
+
+        throw new IllegalStateException("Ran out of private use codepoints for sticker glyphs!");
+    }
+
+    private static boolean isReserved(int codepoint) {
+        return codepoint >= RESERVED_START && codepoint <= RESERVED_END;
+    }
+
+    private static @NotNull String slug(@NotNull String fileName) {
+        String name = fileName.substring(0, fileName.lastIndexOf('.')).toLowerCase(Locale.ROOT);
+        return name.replaceAll("[^a-z0-9_.-]", "_");
+    }
+
+    private @NotNull Manifest readManifest() {
+        Path file = getManifestFile();
+        if (!Files.exists(file)) return Manifest.EMPTY;
+
+        try (Reader reader = Files.newBufferedReader(file)) {
+            Manifest manifest = gson.fromJson(reader, Manifest.class);
+            return manifest == null || manifest.entries() == null ? Manifest.EMPTY : manifest;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Could not read " + file.getFileName() + ", rebuilding the resource pack from scratch: " + e.getMessage());
+            return Manifest.EMPTY;
+        }
+    }
+
+    private void writeManifest(@NotNull Manifest manifest) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(getManifestFile())) {
+            gson.toJson(manifest, writer);
+        }
+    }
+
+    private @NotNull Path getManifestFile() {
+        return plugin.getDataFolder().toPath().resolve("pack-manifest.json");
+    }
+
+    private static @NotNull MessageDigest digest(@NotNull String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (Exception e) {
+            throw new IllegalStateException(algorithm + " is not available", e);
+        }
+    }
+
+    private static @NotNull BufferedImage copy(@NotNull BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = copy.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+
+        return copy;
+    }
+
+    private static @Nullable Node child(@Nullable Node parent, @NotNull String name) {
+        if (parent == null) return null;
+
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeName().equals(name)) return node;
+        }
+
+        return null;
+    }
+
+    private static @NotNull String attribute(@NotNull Node node, @NotNull String name, @NotNull String fallback) {
+        Node attribute = node.getAttributes().getNamedItem(name);
+        return attribute == null ? fallback : attribute.getNodeValue();
+    }
+
+    private static int intAttribute(@NotNull Node node, @NotNull String name, int fallback) {
+        try {
+            return Integer.parseInt(attribute(node, name, String.valueOf(fallback)));
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * The result of a build.
+     *
+     * @param file     The pack zip.
+     * @param hash     The lower case hex encoded SHA-1 hash of the zip.
+     * @param stickers The catalog entries for the stickers in the pack.
+     */
+    public record Result(Path file, String hash, List<Sticker> stickers) { }
+
+    private record Source(String fileName, byte[] content, String contentHash) { }
+
+    private record Decoded(Source source, int width, int height, int glyphCount, byte[] strip,
+                           List<Integer> frameGlyphs, List<Integer> frameDurations) { }
+
+    private record FramePixels(int[] pixels) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof FramePixels frame && Arrays.equals(pixels, frame.pixels);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(pixels);
+        }
+    }
+
+    private record Manifest(@Nullable String packHash, @Nullable String settings, Map<String, Entry> entries) {
+        private static final Manifest EMPTY = new Manifest(null, null, Collections.emptyMap());
+    }
+
+    private record Entry(String contentHash, String slug, int firstCodepoint, int glyphCount, int width, int height,
+                         List<Integer> frameGlyphs, List<Integer> frameDurations) {
+        private List<Integer> codepoints() {
+            return IntStream.range(firstCodepoint, firstCodepoint + glyphCount).boxed().toList();
+        }
+    }
+
+}
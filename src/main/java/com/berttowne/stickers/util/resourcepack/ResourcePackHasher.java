@@ -0,0 +1,168 @@
+package com.berttowne.stickers.util.resourcepack;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes the SHA-1 hash of a resource pack by streaming it, remembering the result in the
+ * data folder together with the validators the host returned ({@code ETag},
+ * {@code Last-Modified} and size).
+ * <p>
+ * Later requests for the same URL are conditional, so an unchanged pack is answered with a
+ * {@code 304 Not Modified} and never downloaded again. Non-HTTP URLs (such as {@code file:})
+ * are compared by modification time and size instead.
+ * <p>
+ * Different URLs may be hashed concurrently.
+ */
+@Singleton
+public class ResourcePackHasher {
+
+    private static final int CONNECT_TIMEOUT = 10_000;
+    private static final int READ_TIMEOUT = 30_000;
+
+    private final Plugin plugin;
+    private final Gson gson;
+    private final HexFormat hexFormat = HexFormat.of();
+
+    private Map<String, CacheEntry> cache;
+
+    @Inject
+    public ResourcePackHasher(Plugin plugin, Gson gson) {
+        this.plugin = plugin;
+        this.gson = gson;
+    }
+
+    /**
+     * Get the SHA-1 hash of the resource pack at the given URL, downloading it only if it
+     * changed since it was last hashed. This blocks, so it should never run on a server thread.
+     *
+     * @param url The URL of the resource pack.
+     * @return The lower case hex encoded SHA-1 hash.
+     * @throws Exception If the pack could not be read or hashed.
+     */
+    public @NotNull String hash(@NotNull String url) throws Exception {
+        CacheEntry cached = getCache().get(url);
+
+        URLConnection connection = new URI(url).toURL().openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(READ_TIMEOUT);
+
+        if (connection instanceof HttpURLConnection http) {
+            if (cached != null && cached.etag() != null) http.setRequestProperty("If-None-Match", cached.etag());
+            if (cached != null && cached.lastModified() != null) http.setRequestProperty("If-Modified-Since", cached.lastModified());
+
+            int status = http.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                http.disconnect();
+                return cached.hash();
+            }
+
+            if (status != HttpURLConnection.HTTP_OK) {
+                http.disconnect();
+                throw new IOException("Unexpected response " + status + " while downloading " + url);
+            }
+        }
+
+        CacheEntry validators = new CacheEntry(connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"),
+                connection.getContentLengthLong(), null);
+
+        // Hosts that ignore conditional requests still let us skip the body if nothing changed
+        if (cached != null && cached.matches(validators)) {
+            if (connection instanceof HttpURLConnection http) http.disconnect();
+            else connection.getInputStream().close();
+
+            return cached.hash();
+        }
+
+        String hash = digest(connection);
+        getCache().put(url, validators.withHash(hash));
+        saveCache();
+
+        return hash;
+    }
+
+    private @NotNull String digest(@NotNull URLConnection connection) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+
+        return hexFormat.formatHex(digest.digest());
+    }
+
+    private synchronized @NotNull Map<String, CacheEntry> getCache() {
+        if (cache != null) return cache;
+
+        File file = getCacheFile();
+        Map<String, CacheEntry> loaded = null;
+        if (file.exists()) {
+            try (FileReader reader = new FileReader(file)) {
+                loaded = gson.fromJson(reader, new TypeToken<Map<String, CacheEntry>>() { }.getType());
+            } catch (Exception e) {
+                plugin.getLogger().warning("Could not read " + file.getName() + ", resource pack hashes will be recomputed: " + e.getMessage());
+            }
+        }
+
+        cache = new ConcurrentHashMap<>();
+        if (loaded != null) cache.putAll(loaded);
+        return cache;
+    }
+
+    private synchronized void saveCache() {
+        File file = getCacheFile();
+        file.getParentFile().mkdirs();
+
+        try (FileWriter writer = new FileWriter(file)) {
+            gson.toJson(cache, writer);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not write " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private @NotNull File getCacheFile() {
+        return new File(plugin.getDataFolder(), "resource-pack-cache.json");
+    }
+
+    private record CacheEntry(@Nullable String etag, @Nullable String lastModified, long size, String hash) {
+
+        /**
+         * Validators only prove the pack is unchanged if the host sent at least one strong one.
+         */
+        private boolean matches(@NotNull CacheEntry other) {
+            if (etag == null && lastModified == null) return false;
+
+            return Objects.equals(etag, other.etag) && Objects.equals(lastModified, other.lastModified) && size == other.size;
+        }
+
+        private @NotNull CacheEntry withHash(@NotNull String hash) {
+            return new CacheEntry(etag, lastModified, size, hash);
+        }
+
+    }
+
+}
@@ -0,0 +1,369 @@
+package com.berttowne.stickers.util.resourcepack;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Minimal embedded HTTP server that hands out the resource pack, so join storms are served
+ * locally instead of by an external host.
+ * <p>
+ * The pack is hashed once when it is loaded, from a memory mapping of the file, so its SHA-1
+ * is known without downloading it. The mapping is only used for hashing: bodies are read from
+ * the open {@link FileChannel} and written to the {@link HttpServer} response stream. As that is
+ * an {@link OutputStream} rather than a socket channel, this is a buffered copy, not a zero-copy
+ * transfer; each pack download costs a small fixed buffer, never the whole file. Single byte ranges and conditional requests ({@code If-None-Match},
+ * {@code If-Modified-Since}, {@code If-Range}) are supported so interrupted or repeated
+ * downloads stay cheap, and the number of concurrent downloads is capped: requests over the
+ * limit are answered with {@code 503} and a {@code Retry-After} hint.
+ */
+public class ResourcePackServer {
+
+    private static final int RETRY_AFTER_SECONDS = 5;
+
+    private final Logger logger;
+    private final Semaphore downloads;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private volatile Pack pack;
+
+    public ResourcePackServer(@NotNull Logger logger, int maxConcurrentDownloads) {
+        this.logger = logger;
+        this.downloads = new Semaphore(Math.max(1, maxConcurrentDownloads));
+    }
+
+    /**
+     * Start serving on the given address.
+     *
+     * @param address The address to bind to.
+     * @throws IOException If the server could not be bound.
+     */
+    public void start(@NotNull InetSocketAddress address) throws IOException {
+        if (server != null) throw new IllegalStateException("Resource pack server already running!");
+
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Stop serving, waiting up to a second for in-flight downloads, and release the pack file.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdownNow();
+            server = null;
+        }
+
+        Pack pack = this.pack;
+        this.pack = null;
+        if (pack != null) pack.close();
+    }
+
+    /**
+     * Load (or replace) the served pack, hashing it from a memory mapping of the file.
+     *
+     * @param file The pack zip file.
+     * @return The lower case hex encoded SHA-1 hash of the pack.
+     * @throws IOException If the file could not be read.
+     */
+    public @NotNull String load(@NotNull Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        try {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(mapped);
+
+            return publish(channel, HexFormat.of().formatHex(digest.digest()), Files.getLastModifiedTime(file).toInstant());
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            channel.close();
+            if (e instanceof IOException io) throw io;
+            throw new IOException("Could not hash " + file, e);
+        }
+    }
+
+    /**
+     * Replace the served pack with a file whose hash is already known, such as one that was
+     * just written by {@link ResourcePackBuilder}.
+     *
+     * @param file The pack zip file.
+     * @param hash The lower case hex encoded SHA-1 hash of the file.
+     * @throws IOException If the file could not be opened.
+     */
+    public void load(@NotNull Path file, @NotNull String hash) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        try {
+            publish(channel, hash, Files.getLastModifiedTime(file).toInstant());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private @NotNull String publish(FileChannel channel, String hash, Instant lastModified) throws IOException {
+        Pack previous = this.pack;
+        this.pack = new Pack(channel, channel.size(), hash, "\"" + hash + "\"", lastModified.truncatedTo(ChronoUnit.SECONDS));
+
+        // In-flight downloads of the previous pack keep their channel open until they finish
+        if (previous != null) previous.close();
+
+        return hash;
+    }
+
+    public @Nullable String getHash() {
+        Pack pack = this.pack;
+        return pack == null ? null : pack.hash();
+    }
+
+    private void handle(@NotNull HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            boolean head = method.equals("HEAD");
+            if (!head && !method.equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            Pack pack = acquire();
+            if (pack == null) {
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            try {
+                respond(exchange, pack, head);
+            } finally {
+                pack.close();
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Resource pack download from " + exchange.getRemoteAddress() + " failed", e);
+        }
+    }
+
+    private @Nullable Pack acquire() {
+        while (true) {
+            Pack pack = this.pack;
+            if (pack == null || pack.retain()) return pack;
+            // Replaced and released between the read and the retain, try the new one
+        }
+    }
+
+    private void respond(@NotNull HttpExchange exchange, @NotNull Pack pack, boolean head) throws IOException {
+        Headers request = exchange.getRequestHeaders();
+        Headers response = exchange.getResponseHeaders();
+        response.set("Content-Type", "application/zip");
+        response.set("Accept-Ranges", "bytes");
+        response.set("ETag", pack.etag());
+        response.set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(pack.lastModified().atZone(ZoneOffset.UTC)));
+        response.set("Cache-Control", "public, max-age=31536000, immutable");
+
+        if (notModified(pack, request)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        long start = 0;
+        long length = pack.size();
+        int status = 200;
+        String range = request.getFirst("Range");
+        String ifRange = request.getFirst("If-Range");
+
+        if (range != null && (ifRange == null || ifRange.equals(pack.etag()))) {
+            long[] bounds = parseRange(range, pack.size());
+            if (bounds == null) {
+                response.set("Content-Range", "bytes */" + pack.size());
+                exchange.sendResponseHeaders(416, -1);
+                return;
+            }
+
+            start = bounds[0];
+            length = bounds[1] - bounds[0] + 1;
+            status = 206;
+            response.set("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + pack.size());
+        }
+
+        if (head) {
+            response.set("Content-Length", String.valueOf(length));
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+
+        if (!downloads.tryAcquire()) {
+            response.set("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+            exchange.sendResponseHeaders(503, -1);
+            return;
+        }
+
+        try {
+            exchange.sendResponseHeaders(status, length);
+            transfer(pack.channel(), start, length, exchange.getResponseBody());
+        } finally {
+            downloads.release();
+        }
+    }
+
+    /**
+     * Copy a slice of the pack to the response. The target wraps a stream, so the JDK copies
+     * through its own transfer buffer instead of handing the file to the socket.
+     */
+    private static void transfer(FileChannel channel, long position, long length, OutputStream body) throws IOException {
+        WritableByteChannel target = Channels.newChannel(body);
+
+        while (length > 0) {
+            long written = channel.transferTo(position, length, target);
+            if (written <= 0) throw new IOException("Client stopped reading");
+
+            position += written;
+            length -= written;
+        }
+    }
+
+    private static boolean notModified(@NotNull Pack pack, @NotNull Headers request) {
+        String ifNoneMatch = request.getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String trimmed = tag.trim();
+                if (trimmed.equals("*") || trimmed.equals(pack.etag()) || trimmed.equals("W/" + pack.etag())) return true;
+            }
+
+            return false; // If-None-Match takes precedence over If-Modified-Since
+        }
+
+        String ifModifiedSince = request.getFirst("If-Modified-Since");
+        if (ifModifiedSince == null) return false;
+
+        try {
+            Instant since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return !pack.lastModified().isAfter(since);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parse a single {@code bytes=} range.
+     *
+     * @return The inclusive first and last byte, or {@code null} if the range is not satisfiable.
+     */
+    private static long @Nullable [] parseRange(@NotNull String range, long size) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0 || size == 0) return null;
+
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+
+            if (first.isEmpty()) { // Suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) return null;
+                return new long[]{Math.max(0, size - suffix), size - 1};
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (start > end || start >= size) return null;
+
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A loaded pack. The channel is reference counted so replacing the pack never cuts off
+     * downloads that are still streaming the previous one.
+     */
+    private static final class Pack {
+
+        private final FileChannel channel;
+        private final long size;
+        private final String hash;
+        private final String etag;
+        private final Instant lastModified;
+        private int references = 1;
+
+        private Pack(FileChannel channel, long size, String hash, String etag, Instant lastModified) {
+            this.channel = channel;
+            this.size = size;
+            this.hash = hash;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        private synchronized boolean retain() {
+            if (references == 0) return false;
+
+            references++;
+            return true;
+        }
+
+        private synchronized void close() {
+            if (references == 0 || --references > 0) return;
+
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private FileChannel channel() {
+            return channel;
+        }
+
+        private long size() {
+            return size;
+        }
+
+        private String hash() {
+            return hash;
+        }
+
+        private String etag() {
+            return etag;
+        }
+
+        private Instant lastModified() {
+            return lastModified;
+        }
+
+    }
+
+}
@@ -1,8 +1,16 @@
 package com.berttowne.stickers.util.resourcepack;
 
-import com.berttowne.stickers.StickersPlugin;
+import com.berttowne.stickers.util.Scheduler;
+import com.berttowne.stickers.util.config.ConfigService;
+import com.berttowne.stickers.util.config.StickersConfig;
+import com.berttowne.stickers.util.injection.DependsOn;
 import com.berttowne.stickers.util.injection.Service;
+import com.berttowne.stickers.util.injection.ServiceOptions;
+import com.berttowne.stickers.util.metrics.Metrics;
+import com.berttowne.stickers.util.metrics.StartupProfiler;
+import com.berttowne.stickers.util.metrics.StickerEvents;
 import com.google.auto.service.AutoService;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import net.kyori.adventure.resource.ResourcePackInfo;
@@ -10,99 +18,481 @@ import net.kyori.adventure.resource.ResourcePackRequest;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerResourcePackStatusEvent;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.InputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URI;
-import java.net.URLConnection;
-import java.security.MessageDigest;
-import java.util.HexFormat;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 @Singleton
 @SuppressWarnings("unused")
 @AutoService({Service.class, Listener.class})
+@ServiceOptions(threadSafe = true)
+@DependsOn(ConfigService.class)
 public class ResourcePackService implements Service, Listener {
 
-    private final StickersPlugin plugin;
-    private final HexFormat hexFormat = HexFormat.of();
+    /**
+     * Settings whose change makes a config reload reload the packs. The builder and server are only read on startup.
+     */
+    private static final Set<String> PACK_SETTINGS = Set.of("resource-pack.url", "resource-pack.hash", "resource-pack.generate-hash",
+            "resource-pack.variants", "resource-pack.add-ons");
 
-    private ResourcePackInfo resourcePackInfo;
+    /**
+     * Players who have not joined for this long are sent the pack again, keeping the applied pack table small.
+     */
+    private static final Duration APPLIED_PACK_RETENTION = Duration.ofDays(30);
+
+    private static final Component PROMPT = Component.text("\n")
+            .append(Component.text("RESOURCE PACK REQUIRED\n\n", NamedTextColor.RED, TextDecoration.BOLD))
+            .append(Component.text("For the best experience, we require the use of a\n", NamedTextColor.WHITE))
+            .append(Component.text("custom resource pack. Rejecting the resource\n", NamedTextColor.WHITE))
+            .append(Component.text("pack will result in you being kicked!", NamedTextColor.WHITE));
+
+    private final Plugin plugin;
+    private final ConfigService config;
+    private final ResourcePackHasher hasher;
+    private final ResourcePackBuilder builder;
+    private final Set<UUID> pendingPlayers = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, String> sessionPacks = new ConcurrentHashMap<>();
+    private final AppliedPackTracker appliedPacks;
+    private final NamespacedKey variantKey;
+
+    private volatile ResourcePackSet packs;
+    private ResourcePackServer server;
+    private PackSource servedPack;
 
     @Inject
-    public ResourcePackService(StickersPlugin plugin) {
+    public ResourcePackService(Plugin plugin, ConfigService config, ResourcePackHasher hasher, ResourcePackBuilder builder) {
         this.plugin = plugin;
+        this.config = config;
+        this.hasher = hasher;
+        this.builder = builder;
+        this.appliedPacks = new AppliedPackTracker(plugin.getDataFolder().toPath().resolve("applied-packs.dat"), APPLIED_PACK_RETENTION);
+        this.variantKey = new NamespacedKey(plugin, "resource_pack_variant");
     }
 
     @Override
     public void onLoad() {
-        String rpUrl = plugin.getConfig().getString("resource-pack.url");
-        String rpHash = plugin.getConfig().getString("resource-pack.hash");
+        Metrics.gauge("stickers_pack_requests_sent", "Resource pack requests sent since startup", appliedPacks::getSent);
+        Metrics.gauge("stickers_pack_requests_skipped", "Resource pack requests skipped because the player already had the pack", appliedPacks::getSkipped);
+
+        try {
+            appliedPacks.load();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not read applied-packs.dat, every player will be sent the pack again: " + e.getMessage());
+        }
+
+        StickersConfig.ResourcePack settings = config.get().resourcePack();
+        ResourcePackBuilder.Result built = settings.builder().enabled()
+                ? StartupProfiler.time("resource-pack", "build pack", () -> buildPack(settings))
+                : null;
+
+        if (settings.server().enabled()) {
+            this.servedPack = StartupProfiler.time("resource-pack", "start server", () -> startServer(settings, built));
+            if (servedPack == null) return;
+        } else if (built != null) {
+            plugin.getLogger().info("Upload " + built.file() + " (" + built.hash() + ") to the configured resource pack URL to use it");
+        }
 
-        if (rpUrl == null) {
+        if (servedPack == null && settings.url() == null) {
             plugin.getLogger().severe("** RESOURCE PACK URL NOT SET **");
-            plugin.getServer().getPluginManager().disablePlugin(plugin);
+            disablePlugin();
             return;
         }
 
-        if (plugin.getConfig().getBoolean("resource-pack.generate-hash") || rpHash == null) {
-            plugin.getLogger().info("Generating resource pack hash...");
+        // Hashed off the main thread; players joining in the meantime are queued until the packs are ready
+        reload();
+
+        config.addListener((previous, current, changed) -> {
+            if (changed.stream().anyMatch(PACK_SETTINGS::contains)) reload();
+        });
+    }
+
+    @Override
+    public void onDisable() {
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+
+        try {
+            appliedPacks.save();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not write applied-packs.dat: " + e.getMessage());
+        }
+
+        plugin.getLogger().info("Resource pack requests sent: " + appliedPacks.getSent() + ", skipped: " + appliedPacks.getSkipped());
+    }
+
+    /**
+     * Re-read the packs from the current config snapshot and hash every pack that needs it concurrently. The
+     * new packs replace the current ones all at once when every hash is known, and online
+     * players whose packs changed are sent the new ones.
+     *
+     * @return A future completed once the new packs are in use, or failed if the default pack
+     * could not be loaded, in which case the current packs are kept.
+     */
+    public @NotNull CompletableFuture<Void> reload() {
+        StickersConfig.ResourcePack settings = config.get().resourcePack();
+        boolean generate = settings.generateHash();
+        PackSource primary = servedPack != null ? servedPack : new PackSource(ResourcePackSet.DEFAULT_VARIANT, settings.url(), settings.hash(), generate, -1);
+
+        List<PackSource> variantSources = Lists.newArrayList(primary);
+        for (StickersConfig.PackVariant variant : settings.variants()) {
+            if (variant.name().equals(ResourcePackSet.DEFAULT_VARIANT)) continue;
+
+            variantSources.add(new PackSource(variant.name(), variant.url(), variant.hash(), generate, variant.maxProtocol()));
+        }
+
+        List<PackSource> addOnSources = Lists.newArrayList();
+        int addOnIndex = 0;
+        for (StickersConfig.AddOn addOn : settings.addOns()) {
+            addOnSources.add(new PackSource("add-on " + addOnIndex++, addOn.url(), addOn.hash(), generate, -1));
+        }
+
+        plugin.getLogger().info("Loading " + (variantSources.size() + addOnSources.size()) + " resource pack(s)...");
+        long start = System.nanoTime();
+
+        List<CompletableFuture<ResourcePackInfo>> variantFutures = variantSources.stream().map(this::resolve).toList();
+        List<CompletableFuture<ResourcePackInfo>> addOnFutures = addOnSources.stream().map(this::resolve).toList();
+
+        return CompletableFuture.allOf(variantFutures.toArray(CompletableFuture[]::new))
+                .thenCombine(CompletableFuture.allOf(addOnFutures.toArray(CompletableFuture[]::new)), (ignored, ignored2) -> {
+                    List<ResourcePackSet.Variant> variants = Lists.newArrayList();
+                    for (int i = 0; i < variantSources.size(); i++) {
+                        ResourcePackInfo info = variantFutures.get(i).join();
+                        if (info != null) variants.add(new ResourcePackSet.Variant(variantSources.get(i).name(), info, variantSources.get(i).maxProtocol()));
+                    }
+
+                    List<ResourcePackInfo> addOns = addOnFutures.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList();
 
-            try {
-                rpHash = this.getHashFromUrl(rpUrl);
+                    if (variants.isEmpty() || !variants.getFirst().name().equals(ResourcePackSet.DEFAULT_VARIANT)) {
+                        throw new IllegalStateException("The default resource pack could not be loaded");
+                    }
+
+                    return new ResourcePackSet(variants, addOns);
+                })
+                .thenAccept(set -> {
+                    long elapsed = System.nanoTime() - start;
+                    StartupProfiler.record("resource-pack", "load packs", start, elapsed);
+                    plugin.getLogger().info("Resource packs ready in " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms: " + String.join(", ", set.getVariantNames())
+                            + (set.getAddOns().isEmpty() ? "" : " (+" + set.getAddOns().size() + " add-on(s))"));
+                    publish(set);
+                })
+                .whenComplete((ignored, error) -> {
+                    if (error == null) return;
+
+                    if (packs != null) {
+                        plugin.getLogger().log(Level.SEVERE, "Unable to reload the resource packs, keeping the current ones", error);
+                        return;
+                    }
+
+                    plugin.getLogger().log(Level.SEVERE, "** UNABLE TO LOAD THE RESOURCE PACK **", error);
+                    disablePlugin();
+                });
+    }
+
+    /**
+     * Complete a pack's hash, hashing it if it was not configured (or {@code generate-hash} is
+     * set). A pack that can't be hashed falls back to its configured hash, or is left out.
+     */
+    @NotNull CompletableFuture<ResourcePackInfo> resolve(@NotNull PackSource source) {
+        if (source.url() == null) {
+            plugin.getLogger().warning("Resource pack " + source.name() + " has no url, skipping it");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String configuredHash = source.hash() == null || source.hash().isBlank() ? null : source.hash();
+        if (configuredHash != null && !source.generate()) {
+            return CompletableFuture.completedFuture(info(source, configuredHash));
+        }
+
+        return Scheduler.io(() -> {
+            StickerEvents.PackHash event = new StickerEvents.PackHash();
+            event.begin();
+
+            try (StartupProfiler.Section ignored = StartupProfiler.start("resource-pack", "hash " + source.name())) {
+                String hash = hasher.hash(source.url());
+                event.succeeded = true;
+                return hash;
             } catch (Exception e) {
-                plugin.getLogger().severe("** UNABLE TO GENERATE RESOURCE PACK HASH AUTOMATICALLY **");
-                plugin.getServer().getPluginManager().disablePlugin(plugin);
+                throw new CompletionException(e);
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.packName = source.name();
+                    event.url = source.url();
+                    event.commit();
+                }
+            }
+        }).handle((hash, error) -> {
+            if (error == null) return info(source, hash);
 
-                throw new RuntimeException(e);
+            if (configuredHash != null) {
+                plugin.getLogger().log(Level.WARNING, "Unable to generate the hash of resource pack " + source.name() + ", using the configured one", error);
+                return info(source, configuredHash);
             }
-        }
 
-        this.resourcePackInfo = ResourcePackInfo.resourcePackInfo()
-                .uri(URI.create(rpUrl))
-                .hash(rpHash)
+            plugin.getLogger().log(Level.SEVERE, "Unable to generate the hash of resource pack " + source.name() + ", skipping it", error);
+            return null;
+        });
+    }
+
+    /**
+     * Disable the plugin from the server thread, as this service loads on a worker thread.
+     */
+    private void disablePlugin() {
+        Scheduler.run(() -> plugin.getServer().getPluginManager().disablePlugin(plugin));
+    }
+
+    /**
+     * The id is derived from the pack's name as well as its hash, so variants and add-ons that
+     * share a pack still get distinct ids.
+     */
+    private static @NotNull ResourcePackInfo info(@NotNull PackSource source, @NotNull String hash) {
+        return ResourcePackInfo.resourcePackInfo()
+                .id(UUID.nameUUIDFromBytes(("stickers:" + source.name() + ":" + hash).getBytes(StandardCharsets.UTF_8)))
+                .uri(URI.create(source.url()))
+                .hash(hash)
                 .build();
     }
 
+    private ResourcePackBuilder.Result buildPack(@NotNull StickersConfig.ResourcePack settings) {
+        StickersConfig.PackBuilder options = settings.builder();
+        Path sources = plugin.getDataFolder().toPath().resolve(options.sources());
+
+        try {
+            return builder.build(sources, getPackFile(settings), options.glyphHeight(), options.ascent(), options.packFormat(), Runtime.getRuntime().availableProcessors());
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "** UNABLE TO BUILD RESOURCE PACK **", e);
+            return null;
+        }
+    }
+
+    private Path getPackFile(@NotNull StickersConfig.ResourcePack settings) {
+        return plugin.getDataFolder().toPath().resolve(settings.server().file());
+    }
+
+    private @Nullable PackSource startServer(@NotNull StickersConfig.ResourcePack settings, ResourcePackBuilder.Result built) {
+        String publicUrl = settings.server().publicUrl();
+        if (publicUrl.isBlank()) {
+            plugin.getLogger().severe("** RESOURCE PACK SERVER PUBLIC URL NOT SET **");
+            disablePlugin();
+            return null;
+        }
+
+        String bind = settings.server().bind();
+        int port = settings.server().port();
+
+        try {
+            this.server = new ResourcePackServer(plugin.getLogger(), settings.server().maxConcurrentDownloads());
+            String hash;
+            if (built != null) {
+                server.load(built.file(), built.hash()); // Hashed while it was written
+                hash = built.hash();
+            } else {
+                hash = server.load(getPackFile(settings));
+            }
+
+            server.start(new InetSocketAddress(bind, port));
+
+            plugin.getLogger().info("Serving resource pack " + hash + " on " + bind + ":" + port);
+
+            // The hash in the path makes every pack version a new URL, so clients and proxies may cache it forever
+            return new PackSource(ResourcePackSet.DEFAULT_VARIANT, publicUrl.replaceAll("/+$", "") + "/" + hash + ".zip", hash, false, -1);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "** UNABLE TO START RESOURCE PACK SERVER **", e);
+            onDisable();
+            disablePlugin();
+            return null;
+        }
+    }
+
+    private void publish(@NotNull ResourcePackSet set) {
+        this.packs = set;
+
+        // Flush players who joined before the packs were ready, and update everyone else
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            if (pendingPlayers.remove(player.getUniqueId())) Scheduler.run(player, Scheduler.timed("pack join", () -> join(player)));
+            else Scheduler.run(player, Scheduler.timed("pack send", () -> sendResourcePack(player)));
+        }
+
+        pendingPlayers.clear();
+    }
+
     @EventHandler
     public void onPlayerJoin(@NotNull PlayerJoinEvent event) {
-        event.getPlayer().sendResourcePacks(ResourcePackRequest.resourcePackRequest()
-                .packs(resourcePackInfo)
-                .required(true)
-                .prompt(Component.text("\n")
-                        .append(Component.text("RESOURCE PACK REQUIRED\n\n", NamedTextColor.RED, TextDecoration.BOLD))
-                        .append(Component.text("For the best experience, we require the use of a\n", NamedTextColor.WHITE))
-                        .append(Component.text("custom resource pack. Rejecting the resource\n", NamedTextColor.WHITE))
-                        .append(Component.text("pack will result in you being kicked!", NamedTextColor.WHITE)))
-                .build());
+        if (packs == null) {
+            pendingPlayers.add(event.getPlayer().getUniqueId());
+
+            // The packs may have been published between the check and the add
+            if (packs == null || !pendingPlayers.remove(event.getPlayer().getUniqueId())) return;
+        }
+
+        join(event.getPlayer());
     }
 
-    public ResourcePackInfo getResourcePack() {
-        return resourcePackInfo;
+    private void join(@NotNull Player player) {
+        ResourcePackSet.Variant variant = getVariant(player);
+        if (variant == null) return;
+
+        // Clients unload server packs when they disconnect, so a pack applied in an earlier session
+        // is only still loaded when a proxy kept the client connected (e.g. moving between backends)
+        if (config.get().resourcePack().skipAppliedOnJoin() && appliedPacks.hasApplied(player.getUniqueId(), variant.fingerprint())) {
+            sessionPacks.put(player.getUniqueId(), variant.fingerprint());
+            appliedPacks.recordSkipped();
+            return;
+        }
+
+        sendResourcePack(player);
     }
 
-    public String getHashFromUrl(String url) throws Exception {
-        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+    @EventHandler
+    public void onPlayerQuit(@NotNull PlayerQuitEvent event) {
+        pendingPlayers.remove(event.getPlayer().getUniqueId());
+        sessionPacks.remove(event.getPlayer().getUniqueId());
+    }
 
-        final URLConnection urlConnection = new URI(url).toURL().openConnection();
-        final int sizeInMB = urlConnection.getContentLength() / 1024 / 1024;
-        final InputStream fis = urlConnection.getInputStream();
+    @EventHandler
+    public void onPlayerResourcePackStatus(@NotNull PlayerResourcePackStatusEvent event) {
+        ResourcePackSet packs = this.packs;
+        if (packs == null) return;
 
-        int n = 0;
-        byte[] buffer = new byte[8192];
+        UUID uuid = event.getPlayer().getUniqueId();
+        ResourcePackSet.Variant variant = packs.getVariant(event.getID());
+        boolean failed = switch (event.getStatus()) {
+            case DECLINED, FAILED_DOWNLOAD, INVALID_URL, FAILED_RELOAD, DISCARDED -> true;
+            default -> false;
+        };
 
-        while (n != -1) {
-            n = fis.read(buffer);
-            if (n > 0) {
-                digest.update(buffer, 0, n);
+        // Only the variant the player should have counts, not one discarded while switching
+        if (variant != null && variant.equals(getVariant(event.getPlayer()))) {
+            if (event.getStatus() == PlayerResourcePackStatusEvent.Status.SUCCESSFULLY_LOADED) {
+                appliedPacks.setApplied(uuid, variant.fingerprint());
+                sessionPacks.put(uuid, variant.fingerprint());
+                return;
             }
+        } else if (!packs.isAddOn(event.getID())) {
+            return;
         }
 
-        fis.close();
+        if (failed) {
+            appliedPacks.forget(uuid);
+            sessionPacks.remove(uuid);
+        }
+    }
+
+    /**
+     * Send the resource packs to a player, unless they already loaded them this session.
+     *
+     * @param player The player.
+     */
+    public void sendResourcePack(@NotNull Player player) {
+        ResourcePackSet packs = this.packs;
+        if (packs == null) return;
+
+        ResourcePackSet.Variant variant = packs.select(player.getProtocolVersion(), getPreferredVariant(player));
+        if (variant.fingerprint().equalsIgnoreCase(String.valueOf(sessionPacks.get(player.getUniqueId())))) {
+            appliedPacks.recordSkipped();
+            return;
+        }
+
+        appliedPacks.recordSent();
+        player.sendResourcePacks(ResourcePackRequest.resourcePackRequest()
+                .packs(packs.getPacks(variant))
+                .replace(true) // Unload the variant the player had before
+                .required(true)
+                .prompt(PROMPT)
+                .build());
+    }
+
+    /**
+     * @param player The player.
+     * @return The variant the player is sent, or {@code null} if the packs are still loading.
+     */
+    public @Nullable ResourcePackSet.Variant getVariant(@NotNull Player player) {
+        ResourcePackSet packs = this.packs;
+        return packs == null ? null : packs.select(player.getProtocolVersion(), getPreferredVariant(player));
+    }
+
+    public @Nullable String getPreferredVariant(@NotNull Player player) {
+        return player.getPersistentDataContainer().get(variantKey, PersistentDataType.STRING);
+    }
 
-        return hexFormat.formatHex(digest.digest());
+    /**
+     * Remember the variant a player prefers and send it to them.
+     *
+     * @param player  The player.
+     * @param variant The variant name, or {@code null} to pick one from their client version again.
+     * @return {@code false} if there is no variant with that name.
+     */
+    public boolean setPreferredVariant(@NotNull Player player, @Nullable String variant) {
+        ResourcePackSet packs = this.packs;
+        if (variant != null && (packs == null || packs.getVariant(variant) == null)) return false;
+
+        if (variant == null) player.getPersistentDataContainer().remove(variantKey);
+        else player.getPersistentDataContainer().set(variantKey, PersistentDataType.STRING, variant);
+
+        sendResourcePack(player);
+        return true;
+    }
+
+    /**
+     * @return The current packs, or {@code null} if their hashes are still being computed.
+     */
+    public @Nullable ResourcePackSet getPacks() {
+        return packs;
+    }
+
+    /**
+     * @return The default resource pack, or {@code null} if its hash is still being computed.
+     */
+    public ResourcePackInfo getResourcePack() {
+        ResourcePackSet packs = this.packs;
+        return packs == null ? null : packs.getDefault().pack();
     }
 
-}
\ No newline at end of file
+    /**
+     * @return The applied pack tracker, including the sent and skipped request counters.
+     */
+    public AppliedPackTracker getAppliedPacks() {
+        return appliedPacks;
+    }
+
+    /**
+     * @deprecated Blocks while the whole pack is downloaded, use {@link ResourcePackHasher#hash(String)} off the main thread instead.
+     */
+    @Deprecated
+    public String getHashFromUrl(String url) throws Exception {
+        return hasher.hash(url);
+    }
+
+    /**
+     * A configured pack whose hash may still have to be computed.
+     */
+    record PackSource(String name, @Nullable String url, @Nullable String hash, boolean generate, int maxProtocol) { }
+
+}
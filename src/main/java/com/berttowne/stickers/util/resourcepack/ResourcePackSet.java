@@ -0,0 +1,157 @@
+package com.berttowne.stickers.util.resourcepack;
+
+import com.google.common.collect.Maps;
+import net.kyori.adventure.resource.ResourcePackInfo;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of every resource pack the plugin sends: the pack variants players
+ * choose between, and the add-on packs sent alongside whichever variant a player gets.
+ * <p>
+ * A new snapshot is built whenever the packs are (re)loaded and swapped in as a whole, so
+ * readers never see a half-updated set of packs.
+ */
+public final class ResourcePackSet {
+
+    public static final String DEFAULT_VARIANT = "default";
+
+    private final Map<String, Variant> variants;
+    private final List<ResourcePackInfo> addOns;
+    private final Map<UUID, Variant> variantsById;
+    private final Set<UUID> addOnIds;
+
+    /**
+     * @param variants The variants in priority order, which must include {@link #DEFAULT_VARIANT}.
+     * @param addOns   The packs sent alongside every variant.
+     * @throws IllegalArgumentException If the default variant is missing or two packs share an id.
+     */
+    public ResourcePackSet(@NotNull List<Variant> variants, @NotNull List<ResourcePackInfo> addOns) {
+        Map<String, Variant> byName = Maps.newLinkedHashMap();
+        Map<UUID, Variant> byId = Maps.newHashMap();
+        String addOnHashes = addOns.stream().map(ResourcePackInfo::hash).collect(Collectors.joining());
+
+        for (Variant variant : variants) {
+            Variant fingerprinted = variant.withFingerprint(addOns.isEmpty() ? variant.pack().hash() : sha1(variant.pack().hash() + addOnHashes));
+            byName.put(variant.name(), fingerprinted);
+            if (byId.put(variant.pack().id(), fingerprinted) != null) {
+                throw new IllegalArgumentException("Variant " + variant.name() + " has the same pack id as another variant");
+            }
+        }
+
+        if (!byName.containsKey(DEFAULT_VARIANT)) throw new IllegalArgumentException("Missing the " + DEFAULT_VARIANT + " variant");
+
+        this.variants = Collections.unmodifiableMap(byName);
+        this.addOns = List.copyOf(addOns);
+        this.variantsById = Map.copyOf(byId);
+        this.addOnIds = addOns.stream().map(ResourcePackInfo::id).collect(Collectors.toUnmodifiableSet());
+        if (addOnIds.size() < addOns.size() || addOnIds.stream().anyMatch(variantsById::containsKey)) {
+            throw new IllegalArgumentException("Every variant and add-on needs its own pack id");
+        }
+    }
+
+    /**
+     * Pick the variant for a player.
+     *
+     * @param protocolVersion The protocol version of the player's client.
+     * @param preference      The variant the player chose, if any.
+     * @return The preferred variant if it exists, otherwise the first variant whose
+     * {@code max-protocol} covers the client, otherwise the default variant.
+     */
+    public @NotNull Variant select(int protocolVersion, @Nullable String preference) {
+        if (preference != null) {
+            Variant preferred = variants.get(preference);
+            if (preferred != null) return preferred;
+        }
+
+        for (Variant variant : variants.values()) {
+            if (variant.maxProtocol() >= 0 && protocolVersion <= variant.maxProtocol()) return variant;
+        }
+
+        return getDefault();
+    }
+
+    public @NotNull Variant getDefault() {
+        return variants.get(DEFAULT_VARIANT);
+    }
+
+    public @Nullable Variant getVariant(@NotNull String name) {
+        return variants.get(name);
+    }
+
+    public @NotNull Collection<String> getVariantNames() {
+        return variants.keySet();
+    }
+
+    public @NotNull List<ResourcePackInfo> getAddOns() {
+        return addOns;
+    }
+
+    /**
+     * @param packId The id of a pack, as reported by the client.
+     * @return The variant with that pack, or {@code null} if it is not a variant of this set.
+     */
+    public @Nullable Variant getVariant(@NotNull UUID packId) {
+        return variantsById.get(packId);
+    }
+
+    public boolean isAddOn(@NotNull UUID packId) {
+        return addOnIds.contains(packId);
+    }
+
+    /**
+     * @return The variant pack followed by the add-ons, as they should be sent to a player.
+     */
+    public @NotNull List<ResourcePackInfo> getPacks(@NotNull Variant variant) {
+        if (addOns.isEmpty()) return List.of(variant.pack());
+
+        ResourcePackInfo[] packs = new ResourcePackInfo[addOns.size() + 1];
+        packs[0] = variant.pack();
+        for (int i = 0; i < addOns.size(); i++) {
+            packs[i + 1] = addOns.get(i);
+        }
+
+        return List.of(packs);
+    }
+
+    private static @NotNull String sha1(@NotNull String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param name        The name of the variant.
+     * @param pack        The pack sent for this variant.
+     * @param maxProtocol The newest client protocol version this variant is picked for
+     *                    automatically, or {@code -1} to only use it when chosen.
+     * @param fingerprint Identifies the variant together with the add-ons, so changing either
+     *                    one is noticed when deciding whether a player already has the packs.
+     */
+    public record Variant(String name, ResourcePackInfo pack, int maxProtocol, String fingerprint) {
+
+        public Variant(@NotNull String name, @NotNull ResourcePackInfo pack, int maxProtocol) {
+            this(name, pack, maxProtocol, pack.hash());
+        }
+
+        private @NotNull Variant withFingerprint(@NotNull String fingerprint) {
+            return new Variant(name, pack, maxProtocol, fingerprint);
+        }
+
+    }
+
+}
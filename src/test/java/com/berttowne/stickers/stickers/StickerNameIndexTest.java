@@ -0,0 +1,87 @@
+package com.berttowne.stickers.stickers;
+
+import net.kyori.adventure.text.Component;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StickerNameIndexTest {
+
+    private static final StickerCatalog CATALOG = new StickerCatalog(List.of(
+            sticker("banana", "stickers.use.fruit"),
+            sticker("Apple", "stickers.use.fruit"),
+            sticker("apricot", "stickers.use.fruit"),
+            sticker("Alpaca", "stickers.use.animals"),
+            sticker("ant", "stickers.use.animals"),
+            sticker("Admin", "stickers.use.staff")
+    ));
+
+    private static Sticker sticker(String name, String permission) {
+        return new Sticker(name, List.of(), List.of(Component.text(name)), 0, permission);
+    }
+
+    /**
+     * @return The key of a player holding the given permission nodes.
+     */
+    private static BitSet key(String... nodes) {
+        Set<String> held = Set.of(nodes);
+        BitSet key = new BitSet();
+        for (int i = 0; i < CATALOG.getPermissionCount(); i++) {
+            if (held.contains(CATALOG.getPermission(i))) key.set(i);
+        }
+
+        return key;
+    }
+
+    private static List<String> complete(BitSet key, String prefix, int limit) {
+        List<String> names = new ArrayList<>();
+        CATALOG.getNameIndex().complete(key, prefix, limit, names::add);
+        return names;
+    }
+
+    @Test
+    void matchesPrefixesIgnoringCaseInSortedOrder() {
+        assertEquals(List.of("Apple", "apricot"), complete(key("stickers.use.fruit"), "AP", 10));
+    }
+
+    @Test
+    void keepsTheAuthoredCaseOfNames() {
+        assertEquals(List.of("Alpaca"), complete(key("stickers.use.animals"), "alp", 10));
+    }
+
+    @Test
+    void onlyMatchesNamesOfHeldPermissions() {
+        assertEquals(List.of("Alpaca", "ant"), complete(key("stickers.use.animals"), "a", 10));
+        assertTrue(complete(key(), "a", 10).isEmpty());
+    }
+
+    @Test
+    void searchesEveryHeldPermission() {
+        List<String> names = complete(key("stickers.use.fruit", "stickers.use.animals", "stickers.use.staff"), "a", 10);
+
+        assertEquals(Set.of("Apple", "apricot", "Alpaca", "ant", "Admin"), Set.copyOf(names));
+        assertEquals(5, names.size());
+    }
+
+    @Test
+    void stopsAtTheLimit() {
+        assertEquals(3, complete(key("stickers.use.fruit", "stickers.use.animals", "stickers.use.staff"), "a", 3).size());
+        assertTrue(complete(key("stickers.use.fruit"), "a", 0).isEmpty());
+    }
+
+    @Test
+    void emptyPrefixMatchesEverything() {
+        assertEquals(List.of("Apple", "apricot", "banana"), complete(key("stickers.use.fruit"), "", 10));
+    }
+
+    @Test
+    void reportsNothingWithoutMatches() {
+        assertTrue(complete(key("stickers.use.fruit"), "cherry", 10).isEmpty());
+    }
+
+}
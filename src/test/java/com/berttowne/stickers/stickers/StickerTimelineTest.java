@@ -0,0 +1,97 @@
+package com.berttowne.stickers.stickers;
+
+import net.kyori.adventure.text.Component;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StickerTimelineTest {
+
+    private static final Component A = Component.text("a");
+    private static final Component B = Component.text("b");
+    private static final Component C = Component.text("c");
+
+    @Test
+    void sharesDuplicateFrames() {
+        StickerTimeline timeline = StickerTimeline.of(List.of(Component.text("a"), B, Component.text("a")), null, 1);
+
+        assertEquals(2, timeline.getFrameCount());
+        List<Component> source = timeline.getSourceFrames();
+        assertSame(source.get(0), source.get(2));
+    }
+
+    @Test
+    void collapsesConsecutiveHoldsIntoOneRun() {
+        StickerTimeline timeline = StickerTimeline.of(List.of(A, A, A, B), null, 5);
+
+        assertEquals(2, timeline.getRunCount());
+        assertEquals(20, timeline.getLength());
+        assertEquals(5, timeline.getStep());
+        assertSame(A, timeline.frameAt(14));
+        assertSame(B, timeline.frameAt(15));
+    }
+
+    @Test
+    void holdsEachFrameForItsDuration() {
+        StickerTimeline timeline = StickerTimeline.of(List.of(A, B, C), List.of(2, 6, 4), 1);
+
+        assertEquals(12, timeline.getLength());
+        assertEquals(2, timeline.getStep());
+        assertEquals(List.of(A, A, B, B, B, B, B, B, C, C, C, C), frames(timeline, 0, 12));
+    }
+
+    @Test
+    void wrapsAroundAndAcceptsNegativeTicks() {
+        StickerTimeline timeline = StickerTimeline.of(List.of(A, B), List.of(2, 3), 1);
+
+        assertSame(A, timeline.frameAt(5));
+        assertSame(B, timeline.frameAt(-1));
+        assertSame(A, timeline.frameAt(5L * 1_000_000_000L));
+    }
+
+    @Test
+    void rejectsCyclesLongerThanAnInt() {
+        assertThrows(IllegalStateException.class, () -> StickerTimeline.of(List.of(A, B), List.of(Integer.MAX_VALUE, 1), 1));
+        assertThrows(IllegalStateException.class, () -> StickerTimeline.of(List.of(A, A), List.of(Integer.MAX_VALUE, 1), 1));
+    }
+
+    @Test
+    void missingAndNonPositiveDurationsUseTheRefreshRate() {
+        StickerTimeline timeline = StickerTimeline.of(List.of(A, B, C), Arrays.asList(null, 0), 3);
+
+        assertEquals(9, timeline.getLength());
+        assertEquals(List.of(A, A, A, B, B, B, C, C, C), frames(timeline, 0, 9));
+    }
+
+    @Test
+    void searchesRunsWhenTheLookupTableWouldBeTooLarge() {
+        StickerTimeline timeline = StickerTimeline.of(List.of(A, B, C), List.of(1, 10_000, 1), 1);
+
+        assertEquals(1, timeline.getStep());
+        assertSame(A, timeline.frameAt(0));
+        assertSame(B, timeline.frameAt(1));
+        assertSame(B, timeline.frameAt(10_000));
+        assertSame(C, timeline.frameAt(10_001));
+        assertSame(A, timeline.frameAt(10_002));
+    }
+
+    @Test
+    void singleDistinctFrameIsNotAnimated() {
+        assertFalse(StickerTimeline.of(List.of(A, Component.text("a")), null, 1).isAnimated());
+        assertTrue(StickerTimeline.of(List.of(A, B), null, 1).isAnimated());
+    }
+
+    @Test
+    void rejectsStickersWithoutFrames() {
+        assertThrows(IllegalStateException.class, () -> StickerTimeline.of(List.of(), null, 1));
+    }
+
+    private static List<Component> frames(StickerTimeline timeline, int from, int to) {
+        return IntStream.range(from, to).mapToObj(timeline::frameAt).toList();
+    }
+
+}
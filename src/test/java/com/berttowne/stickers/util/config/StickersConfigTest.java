@@ -0,0 +1,66 @@
+package com.berttowne.stickers.util.config;
+
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StickersConfigTest {
+
+    private static StickersConfig config(Map<String, Object> settings) {
+        MemoryConfiguration config = new MemoryConfiguration();
+        settings.forEach(config::set);
+        return StickersConfig.from(config);
+    }
+
+    @Test
+    void equalSnapshotsHaveNoChanges() {
+        assertEquals(List.of(), StickersConfig.defaults().diff(StickersConfig.defaults()));
+        assertEquals(List.of(), config(Map.of("sticker-cooldown", 1000)).diff(config(Map.of("sticker-cooldown", 1000L))));
+    }
+
+    @Test
+    void reportsTheChangedSettingsInFileOrder() {
+        StickersConfig changed = config(Map.of(
+                "injector-stage", "production",
+                "sticker-cooldown", 5000,
+                "timings.budget", 10
+        ));
+
+        assertEquals(List.of("sticker-cooldown", "timings.budget", "injector-stage"), StickersConfig.defaults().diff(changed));
+    }
+
+    @Test
+    void reportsChangedAddedAndRemovedMessages() {
+        StickersConfig previous = config(Map.of("messages.cooldown", "<red>Wait", "messages.kept", "Same", "messages.removed", "Gone"));
+        StickersConfig current = config(Map.of("messages.cooldown", "<red>Slow down", "messages.kept", "Same", "messages.added", "New"));
+
+        List<String> changed = previous.diff(current);
+
+        assertEquals(3, changed.size());
+        assertTrue(changed.containsAll(List.of("messages.cooldown", "messages.removed", "messages.added")), changed.toString());
+    }
+
+    @Test
+    void reportsResourcePackSectionsAsAWhole() {
+        StickersConfig current = config(Map.of(
+                "resource-pack.url", "https://example.com/pack.zip",
+                "resource-pack.server.port", 9000,
+                "resource-pack.builder.glyph-height", 48
+        ));
+
+        assertEquals(List.of("resource-pack.url", "resource-pack.builder", "resource-pack.server"), StickersConfig.defaults().diff(current));
+    }
+
+    @Test
+    void diffIsSymmetric() {
+        StickersConfig current = config(Map.of("metrics.file", "other.prom", "metrics.write-interval", 0));
+
+        assertEquals(StickersConfig.defaults().diff(current), current.diff(StickersConfig.defaults()));
+        assertEquals(List.of("metrics.file", "metrics.write-interval"), current.diff(StickersConfig.defaults()));
+    }
+
+}
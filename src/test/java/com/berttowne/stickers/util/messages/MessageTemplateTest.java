@@ -0,0 +1,105 @@
+package com.berttowne.stickers.util.messages;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageTemplateTest {
+
+    private static String plain(Component component) {
+        return PlainTextComponentSerializer.plainText().serialize(component);
+    }
+
+    private static boolean hasMarker(String text) {
+        return text.chars().anyMatch(c -> c >= '\uFDD0' && c <= '\uFDEF');
+    }
+
+    @Test
+    void rendersEveryMessageWithPlaceholders() {
+        for (Message message : Message.values()) {
+            if (message.getPlaceholders().isEmpty()) continue;
+
+            MessageTemplate template = MessageTemplate.compile(message.getDefaultTemplate(), message.getPlaceholders());
+            String[] values = new String[message.getPlaceholders().size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = "value" + i;
+            }
+
+            String rendered = plain(template.render(values));
+            for (String value : values) {
+                assertTrue(rendered.contains(value), message + " should contain " + value + ": " + rendered);
+            }
+            assertFalse(hasMarker(rendered), message + " still contains a marker: " + rendered);
+        }
+    }
+
+    @Test
+    void fillsPlaceholderInsideTextOfTheSameStyle() {
+        MessageTemplate template = MessageTemplate.compile(Message.PACK_SWITCHED.getDefaultTemplate(), Message.PACK_SWITCHED.getPlaceholders());
+
+        Component rendered = template.render("low-res");
+
+        assertEquals("Switched to the low-res resource pack.", plain(rendered));
+    }
+
+    @Test
+    void placeholderTakesTheSurroundingStyle() {
+        MessageTemplate template = MessageTemplate.compile("<red>Wait <white><remaining>", List.of("remaining"));
+
+        Component rendered = template.render("5s");
+
+        assertEquals("Wait 5s", plain(rendered));
+        assertTrue(containsStyled(rendered, "5s", NamedTextColor.WHITE), "The value should be white");
+        assertFalse(containsStyled(rendered, "5s", NamedTextColor.RED), "The value should not be red");
+    }
+
+    @Test
+    void rendersValuesInDeclarationOrder() {
+        MessageTemplate template = MessageTemplate.compile("<target> and <source>", List.of("source", "target"));
+
+        assertEquals("second and first", plain(template.render("first", "second")));
+    }
+
+    @Test
+    void renderWithoutValuesRejectsTemplatesWithPlaceholders() {
+        MessageTemplate template = MessageTemplate.compile(Message.COOLDOWN.getDefaultTemplate(), Message.COOLDOWN.getPlaceholders());
+
+        assertThrows(IllegalStateException.class, template::render);
+    }
+
+    @Test
+    void renderRejectsTheWrongNumberOfValues() {
+        MessageTemplate template = MessageTemplate.compile(Message.COOLDOWN.getDefaultTemplate(), Message.COOLDOWN.getPlaceholders());
+
+        assertThrows(IllegalArgumentException.class, () -> template.render("1s", "2s"));
+    }
+
+    @Test
+    void rendersTemplatesWithoutPlaceholders() {
+        MessageTemplate template = MessageTemplate.compile(Message.STICKER_NOT_FOUND.getDefaultTemplate(), List.of());
+
+        assertEquals("Sticker not found!", plain(template.render()));
+    }
+
+    /**
+     * @return Whether the tree has a text with the content shown in the color, inherited from its parents or not.
+     */
+    private static boolean containsStyled(Component component, String content, NamedTextColor color) {
+        return containsStyled(component, content, color, null);
+    }
+
+    private static boolean containsStyled(Component component, String content, NamedTextColor color, TextColor inherited) {
+        TextColor effective = component.color() != null ? component.color() : inherited;
+        if (component instanceof TextComponent text && text.content().equals(content) && color.equals(effective)) return true;
+
+        return component.children().stream().anyMatch(child -> containsStyled(child, content, color, effective));
+    }
+
+}
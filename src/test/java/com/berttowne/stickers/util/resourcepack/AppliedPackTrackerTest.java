@@ -0,0 +1,58 @@
+package com.berttowne.stickers.util.resourcepack;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppliedPackTrackerTest {
+
+    private static final String HASH = "0123456789abcdef0123456789abcdef01234567";
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void remembersAppliedPacksAcrossRestarts() throws Exception {
+        UUID player = UUID.randomUUID();
+        AppliedPackTracker tracker = new AppliedPackTracker(folder.resolve("applied-packs.dat"), Duration.ofDays(30));
+        tracker.setApplied(player, HASH.toUpperCase(Locale.ROOT));
+        tracker.save();
+
+        AppliedPackTracker restarted = new AppliedPackTracker(folder.resolve("applied-packs.dat"), Duration.ofDays(30));
+        restarted.load();
+
+        assertEquals(HASH, restarted.getApplied(player));
+        assertTrue(restarted.hasApplied(player, HASH));
+        assertFalse(restarted.hasApplied(UUID.randomUUID(), HASH));
+    }
+
+    @Test
+    void dropsPlayersNotSeenWithinTheRetention() throws Exception {
+        UUID player = UUID.randomUUID();
+        AppliedPackTracker tracker = new AppliedPackTracker(folder.resolve("applied-packs.dat"), Duration.ZERO);
+        tracker.setApplied(player, HASH);
+        tracker.save();
+
+        assertNull(tracker.getApplied(player));
+
+        AppliedPackTracker restarted = new AppliedPackTracker(folder.resolve("applied-packs.dat"), Duration.ofDays(30));
+        restarted.load();
+        assertNull(restarted.getApplied(player));
+    }
+
+    @Test
+    void ignoresHashesThatAreNotSha1() {
+        UUID player = UUID.randomUUID();
+        AppliedPackTracker tracker = new AppliedPackTracker(folder.resolve("applied-packs.dat"), Duration.ofDays(30));
+        tracker.setApplied(player, "not a hash");
+
+        assertNull(tracker.getApplied(player));
+    }
+
+}
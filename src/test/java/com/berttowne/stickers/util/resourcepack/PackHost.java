@@ -0,0 +1,105 @@
+package com.berttowne.stickers.util.resourcepack;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An external pack host for the hasher tests, serving one pack at {@code /pack.zip} with an
+ * {@code ETag}, answering {@code If-None-Match} with a {@code 304} unless told to ignore it.
+ */
+final class PackHost implements AutoCloseable {
+
+    private final HttpServer server;
+    private final AtomicInteger bodies = new AtomicInteger();
+
+    private volatile byte[] pack = new byte[0];
+    private volatile String etag;
+    private volatile int status = 200;
+    private volatile boolean conditional = true;
+    private volatile String lastIfNoneMatch;
+
+    PackHost() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/pack.zip", this::handle);
+        server.start();
+    }
+
+    /**
+     * @param pack The pack to serve.
+     * @param etag Its ETag, or {@code null} to send none.
+     */
+    void serve(byte[] pack, String etag) {
+        this.pack = pack;
+        this.etag = etag;
+    }
+
+    /**
+     * @param status The status every request is answered with, 200 to serve the pack.
+     */
+    void setStatus(int status) {
+        this.status = status;
+    }
+
+    /**
+     * @param conditional Whether {@code If-None-Match} is honoured, like most hosts do.
+     */
+    void setConditional(boolean conditional) {
+        this.conditional = conditional;
+    }
+
+    String url() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/pack.zip";
+    }
+
+    /**
+     * @return The number of times the pack was sent.
+     */
+    int getBodies() {
+        return bodies.get();
+    }
+
+    /**
+     * @return The {@code If-None-Match} header of the last request.
+     */
+    String getLastIfNoneMatch() {
+        return lastIfNoneMatch;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            lastIfNoneMatch = ifNoneMatch;
+
+            if (status != 200) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+
+            String etag = this.etag;
+            if (etag != null) exchange.getResponseHeaders().set("ETag", etag);
+            if (conditional && etag != null && etag.equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            byte[] pack = this.pack;
+            exchange.sendResponseHeaders(200, pack.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(pack);
+            }
+            bodies.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+}
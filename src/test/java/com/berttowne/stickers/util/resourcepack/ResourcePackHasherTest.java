@@ -0,0 +1,113 @@
+package com.berttowne.stickers.util.resourcepack;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourcePackHasherTest {
+
+    @TempDir
+    File dataFolder;
+
+    private PackHost host;
+
+    @BeforeEach
+    void startHost() throws IOException {
+        host = new PackHost();
+    }
+
+    @AfterEach
+    void stopHost() {
+        host.close();
+    }
+
+    private ResourcePackHasher hasher() {
+        return new ResourcePackHasher(TestPlugins.plugin(dataFolder), new Gson());
+    }
+
+    private static String sha1(byte[] bytes) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(bytes));
+    }
+
+    @Test
+    void firstDownloadHashesThePackAndCachesIt() throws Exception {
+        byte[] pack = "first pack".getBytes(StandardCharsets.UTF_8);
+        host.serve(pack, "\"v1\"");
+
+        assertEquals(sha1(pack), hasher().hash(host.url()));
+        assertEquals(1, host.getBodies());
+        assertNull(host.getLastIfNoneMatch(), "Nothing was cached yet");
+        assertTrue(new File(dataFolder, "resource-pack-cache.json").isFile());
+    }
+
+    @Test
+    void notModifiedIsAnsweredFromTheCacheFile() throws Exception {
+        byte[] pack = "cached pack".getBytes(StandardCharsets.UTF_8);
+        host.serve(pack, "\"v1\"");
+        hasher().hash(host.url());
+
+        // A new hasher only knows the hash from resource-pack-cache.json
+        String hash = hasher().hash(host.url());
+
+        assertEquals(sha1(pack), hash);
+        assertEquals("\"v1\"", host.getLastIfNoneMatch());
+        assertEquals(1, host.getBodies(), "The pack should not be downloaded again");
+    }
+
+    @Test
+    void changedEtagRehashesThePack() throws Exception {
+        ResourcePackHasher hasher = hasher();
+        host.serve("old pack".getBytes(StandardCharsets.UTF_8), "\"v1\"");
+        hasher.hash(host.url());
+
+        byte[] changed = "new pack".getBytes(StandardCharsets.UTF_8);
+        host.serve(changed, "\"v2\"");
+
+        assertEquals(sha1(changed), hasher.hash(host.url()));
+        assertEquals(2, host.getBodies());
+    }
+
+    @Test
+    void changedSizeRehashesThePackWhenTheHostIgnoresConditionalRequests() throws Exception {
+        ResourcePackHasher hasher = hasher();
+        host.setConditional(false);
+        host.serve("pack".getBytes(StandardCharsets.UTF_8), "\"same\"");
+        hasher.hash(host.url());
+
+        byte[] changed = "a longer pack".getBytes(StandardCharsets.UTF_8);
+        host.serve(changed, "\"same\"");
+
+        assertEquals(sha1(changed), hasher.hash(host.url()));
+        assertEquals(2, host.getBodies());
+    }
+
+    @Test
+    void unchangedValidatorsSkipTheBodyWhenTheHostIgnoresConditionalRequests() throws Exception {
+        ResourcePackHasher hasher = hasher();
+        host.setConditional(false);
+        byte[] pack = "pack".getBytes(StandardCharsets.UTF_8);
+        host.serve(pack, "\"same\"");
+        hasher.hash(host.url());
+
+        assertEquals(sha1(pack), hasher.hash(host.url()));
+    }
+
+    @Test
+    void failedDownloadThrows() {
+        host.setStatus(500);
+
+        assertThrows(IOException.class, () -> hasher().hash(host.url()));
+    }
+
+}
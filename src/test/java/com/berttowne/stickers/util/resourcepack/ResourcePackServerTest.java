@@ -0,0 +1,139 @@
+package com.berttowne.stickers.util.resourcepack;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourcePackServerTest {
+
+    private static final byte[] PACK = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path folder;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private ResourcePackServer server;
+    private URI uri;
+    private String etag;
+
+    @BeforeEach
+    void start() throws IOException {
+        Path file = folder.resolve("pack.zip");
+        Files.write(file, PACK);
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+
+        server = new ResourcePackServer(Logger.getLogger("Stickers Test"), 4);
+        etag = "\"" + server.load(file) + "\"";
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        uri = URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port + "/pack.zip");
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    private HttpResponse<byte[]> get(String... headers) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).GET();
+        if (headers.length > 0) request.headers(headers);
+
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    @Test
+    void servesTheWholePackWithoutARange() throws Exception {
+        HttpResponse<byte[]> response = get();
+
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(PACK, response.body());
+        assertEquals("bytes", response.headers().firstValue("Accept-Ranges").orElse(null));
+        assertEquals(etag, response.headers().firstValue("ETag").orElse(null));
+    }
+
+    @Test
+    void servesAByteRange() throws Exception {
+        HttpResponse<byte[]> response = get("Range", "bytes=2-5");
+
+        assertEquals(206, response.statusCode());
+        assertEquals("bytes 2-5/20", response.headers().firstValue("Content-Range").orElse(null));
+        assertArrayEquals(Arrays.copyOfRange(PACK, 2, 6), response.body());
+    }
+
+    @Test
+    void servesOpenEndedAndSuffixRanges() throws Exception {
+        HttpResponse<byte[]> openEnded = get("Range", "bytes=15-");
+        assertEquals(206, openEnded.statusCode());
+        assertArrayEquals(Arrays.copyOfRange(PACK, 15, 20), openEnded.body());
+
+        HttpResponse<byte[]> suffix = get("Range", "bytes=-3");
+        assertEquals(206, suffix.statusCode());
+        assertEquals("bytes 17-19/20", suffix.headers().firstValue("Content-Range").orElse(null));
+        assertArrayEquals(Arrays.copyOfRange(PACK, 17, 20), suffix.body());
+    }
+
+    @Test
+    void clampsRangesPastTheEnd() throws Exception {
+        HttpResponse<byte[]> response = get("Range", "bytes=18-100");
+
+        assertEquals(206, response.statusCode());
+        assertEquals("bytes 18-19/20", response.headers().firstValue("Content-Range").orElse(null));
+    }
+
+    @Test
+    void rejectsUnsatisfiableAndMultipleRanges() throws Exception {
+        for (String range : new String[]{"bytes=20-30", "bytes=5-2", "bytes=0-1,4-5", "items=0-1"}) {
+            HttpResponse<byte[]> response = get("Range", range);
+
+            assertEquals(416, response.statusCode(), range);
+            assertEquals("bytes */20", response.headers().firstValue("Content-Range").orElse(null), range);
+        }
+    }
+
+    @Test
+    void servesTheRangeWhenIfRangeMatches() throws Exception {
+        HttpResponse<byte[]> response = get("Range", "bytes=0-3", "If-Range", etag);
+
+        assertEquals(206, response.statusCode());
+        assertArrayEquals(Arrays.copyOfRange(PACK, 0, 4), response.body());
+    }
+
+    @Test
+    void servesTheWholePackWhenIfRangeIsStale() throws Exception {
+        HttpResponse<byte[]> response = get("Range", "bytes=0-3", "If-Range", "\"an older pack\"");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Range").isEmpty());
+        assertArrayEquals(PACK, response.body());
+    }
+
+    @Test
+    void answersHeadWithTheRangeLength() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).method("HEAD", HttpRequest.BodyPublishers.noBody()).header("Range", "bytes=4-7").build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(206, response.statusCode());
+        assertEquals("4", response.headers().firstValue("Content-Length").orElse(null));
+    }
+
+}
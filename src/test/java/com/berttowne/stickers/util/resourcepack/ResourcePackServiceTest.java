@@ -0,0 +1,76 @@
+package com.berttowne.stickers.util.resourcepack;
+
+import com.google.gson.Gson;
+import net.kyori.adventure.resource.ResourcePackInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourcePackServiceTest {
+
+    private static final String CONFIGURED_HASH = "0123456789abcdef0123456789abcdef01234567";
+
+    @TempDir
+    File dataFolder;
+
+    private PackHost host;
+    private ResourcePackService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        host = new PackHost();
+        ResourcePackHasher hasher = new ResourcePackHasher(TestPlugins.plugin(dataFolder), new Gson());
+        service = new ResourcePackService(TestPlugins.plugin(dataFolder), null, hasher, null);
+    }
+
+    @AfterEach
+    void stopHost() {
+        host.close();
+    }
+
+    @Test
+    void failedDownloadFallsBackToTheConfiguredHash() {
+        host.setStatus(500);
+
+        ResourcePackInfo info = service.resolve(new ResourcePackService.PackSource("default", host.url(), CONFIGURED_HASH, true, -1)).join();
+
+        assertNotNull(info);
+        assertEquals(CONFIGURED_HASH, info.hash());
+    }
+
+    @Test
+    void failedDownloadWithoutConfiguredHashLeavesThePackOut() {
+        host.setStatus(500);
+
+        assertNull(service.resolve(new ResourcePackService.PackSource("default", host.url(), null, true, -1)).join());
+    }
+
+    @Test
+    void generatedHashReplacesTheConfiguredOne() throws Exception {
+        byte[] pack = "pack".getBytes(StandardCharsets.UTF_8);
+        host.serve(pack, "\"v1\"");
+
+        ResourcePackInfo info = service.resolve(new ResourcePackService.PackSource("default", host.url(), CONFIGURED_HASH, true, -1)).join();
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(pack)), info.hash());
+        assertEquals(1, host.getBodies());
+    }
+
+    @Test
+    void packsSharingAUrlAndHashGetDistinctIds() {
+        ResourcePackInfo variant = service.resolve(new ResourcePackService.PackSource("low-res", host.url(), CONFIGURED_HASH, false, -1)).join();
+        ResourcePackInfo addOn = service.resolve(new ResourcePackService.PackSource("add-on 0", host.url(), CONFIGURED_HASH, false, -1)).join();
+
+        assertNotEquals(variant.id(), addOn.id());
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.berttowne.stickers.util.resourcepack;
+
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.logging.Logger;
+
+/**
+ * A plugin for the resource pack tests, without a server.
+ */
+final class TestPlugins {
+
+    private static final Logger LOGGER = Logger.getLogger("Stickers Test");
+
+    private TestPlugins() { }
+
+    /**
+     * @param dataFolder The plugin's data folder.
+     * @return A plugin that only answers {@link Plugin#getName()}, {@link Plugin#getLogger()} and
+     * {@link Plugin#getDataFolder()}.
+     */
+    static Plugin plugin(File dataFolder) {
+        return (Plugin) Proxy.newProxyInstance(TestPlugins.class.getClassLoader(), new Class<?>[]{Plugin.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> "Stickers";
+            case "getLogger" -> LOGGER;
+            case "getDataFolder" -> dataFolder;
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "toString" -> "Test plugin";
+            default -> method.getReturnType() == boolean.class ? false : null;
+        });
+    }
+
+}